@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.benchmarks;
+
+import com.codenvy.flux.watcher.core.RepositoryModule;
+import com.codenvy.flux.watcher.core.service.WatcherService;
+import com.codenvy.flux.watcher.fs.JDKModule;
+import com.codenvy.flux.watcher.fs.index.ResourceIndex;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+
+import java.nio.file.FileSystem;
+
+/**
+ * Binds the file system of a {@link FileTree} in place of the default one, everything else is bound as in production.
+ */
+public class BenchmarkModule extends AbstractModule {
+    private final FileSystem fileSystem;
+
+    public BenchmarkModule(FileSystem fileSystem) {
+        this.fileSystem = fileSystem;
+    }
+
+    /**
+     * Creates the injector for the given tree and watcher backend. Configuration is read from system properties as
+     * usual, the index is kept in {@link FileTree#getIndexDirectory()}.
+     */
+    public static Injector createInjector(FileTree tree, Class<? extends WatcherService> watcherServiceClass) {
+        System.setProperty(ResourceIndex.INDEX_DIRECTORY, tree.getIndexDirectory().toString());
+        return Guice.createInjector(Modules.override(new RepositoryModule(), new JDKModule(watcherServiceClass))
+                                           .with(new BenchmarkModule(tree.getFileSystem())));
+    }
+
+    @Override
+    protected void configure() {
+        bind(FileSystem.class).toInstance(fileSystem);
+    }
+}
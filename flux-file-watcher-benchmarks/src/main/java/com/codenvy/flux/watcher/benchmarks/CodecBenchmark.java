@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.benchmarks;
+
+import com.codenvy.flux.watcher.core.adapter.Attachments;
+import com.codenvy.flux.watcher.core.adapter.ResourceTypeAdapter;
+import com.codenvy.flux.watcher.core.connection.impl.JsonConverter;
+import com.codenvy.flux.watcher.core.enums.EventType;
+import com.codenvy.flux.watcher.core.enums.ResourceType;
+import com.codenvy.flux.watcher.core.event.ProjectEvent;
+import com.codenvy.flux.watcher.core.event.ResourceEvent;
+import com.codenvy.flux.watcher.core.model.Project;
+import com.codenvy.flux.watcher.core.model.Resource;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting resources between the model, the {@code org.json} trees socket.io sends and receives and the Gson trees
+ * received events are read from. Sent resources are streamed into {@code org.json}, received ones are converted to a
+ * Gson tree first. {@code serializeResourceViaString} and {@code fromWireViaString} are the baseline, the round trip
+ * through JSON text used before, with the content as text since that is all it could carry. Run with
+ * {@code -prof gc} for the allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CodecBenchmark {
+
+    @State(Scope.Thread)
+    public static class ResourceState {
+        @Param({"0", "1024", "65536"})
+        private int contentSize;
+
+        private Resource resource;
+
+        private JsonElement tree;
+
+        private Attachments attachments;
+
+        private Object wire;
+
+        private Resource textResource;
+
+        private JSONObject textWire;
+
+        @Setup
+        public void setUp() throws JSONException {
+            byte[] content = null;
+            if (contentSize > 0) {
+                content = new byte[contentSize];
+                new Random(42).nextBytes(content);
+            }
+            resource = resource(0).setContent(content).setAttachContent(true);
+            attachments = new Attachments();
+            tree = new ResourceTypeAdapter(attachments).toJsonTree(resource);
+            wire = new ResourceEvent(EventType.RESPONSE, resource).serialize();
+            textResource = resource(0).setContent(content);
+            textWire = new JSONObject(new ResourceTypeAdapter().toJsonTree(textResource).toString());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ProjectState {
+        private Project project;
+
+        @Setup
+        public void setUp() {
+            project = new Project().setName("benchmark").setPath("/benchmark");
+            for (int i = 0; i < ProjectEvent.DEFAULT_PAGE_SIZE; i++) {
+                project.getResources().add(resource(i));
+            }
+        }
+    }
+
+    @Benchmark
+    public JSONObject serializeResource(ResourceState state) {
+        return new ResourceEvent(EventType.RESPONSE, state.resource).serialize();
+    }
+
+    @Benchmark
+    public Resource deserializeResource(ResourceState state) {
+        ResourceEvent event = new ResourceEvent(EventType.RESPONSE);
+        event.deserialize(state.tree, state.attachments);
+        return event.getResource();
+    }
+
+    @Benchmark
+    public JsonElement fromWire(ResourceState state) throws JSONException {
+        return JsonConverter.toGson(state.wire, new Attachments());
+    }
+
+    @Benchmark
+    public JSONObject serializeResourceViaString(ResourceState state) throws JSONException {
+        return new JSONObject(new ResourceTypeAdapter().toJsonTree(state.textResource).toString());
+    }
+
+    @Benchmark
+    public JsonElement fromWireViaString(ResourceState state) {
+        return new JsonParser().parse(state.textWire.toString());
+    }
+
+    @Benchmark
+    public JSONObject serializeProjectPage(ProjectState state) {
+        return new ProjectEvent(EventType.RESPONSE, state.project).serializePages().next();
+    }
+
+    private static Resource resource(int index) {
+        return new Resource("src/main/java/com/example/Resource" + index + ".java", "benchmark")
+                .setType(ResourceType.FILE)
+                .setTimestamp(1418000000000L + index)
+                .setHash("da39a3ee5e6b4b0d3255bfef95601890afd80709");
+    }
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.benchmarks;
+
+import com.codenvy.flux.watcher.core.delta.BlockSignatures;
+import com.codenvy.flux.watcher.core.delta.Delta;
+import com.codenvy.flux.watcher.core.delta.DeltaCodec;
+import com.google.common.base.Charsets;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transferring a changed resource as a delta: the receiver signs its version, the sender computes the delta of the
+ * edited one. The content is generated source like text, edited by the pattern of the parameters. {@code deltaBytes}
+ * counts the signatures and the delta, or the whole content when no delta is smaller, {@code fullBytes} the content a
+ * full transfer sends; their ratio is the share of the bandwidth a delta transfer takes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeltaBandwidthBenchmark {
+    private static final int LINE_LENGTH = 80;
+
+    @Param({"65536", "5242880"})
+    private int fileSize;
+
+    /**
+     * {@code append} adds a line at the end, {@code insert} a line in the middle, {@code replace} overwrites a line in
+     * the middle, {@code scattered} changes a byte in 16 places and {@code rewrite} changes every byte.
+     */
+    @Param({"append", "insert", "replace", "scattered", "rewrite"})
+    private String edit;
+
+    private byte[] base;
+
+    private byte[] edited;
+
+    @State(Scope.Thread)
+    @AuxCounters
+    public static class Counters {
+        public long deltaBytes;
+
+        public long fullBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            deltaBytes = 0;
+            fullBytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        base = text(fileSize, random);
+        edited = edit(base, edit, random);
+    }
+
+    @Benchmark
+    public Delta transfer(Counters counters) {
+        BlockSignatures signatures = DeltaCodec.signatures(base);
+        Delta delta = DeltaCodec.delta(signatures, edited);
+        counters.deltaBytes += signatures.getSums().length + (delta != null ? delta.size() : edited.length);
+        counters.fullBytes += edited.length;
+        return delta;
+    }
+
+    private static byte[] edit(byte[] content, String edit, Random random) {
+        int middle = content.length / 2;
+        byte[] line = text(LINE_LENGTH, random);
+        ByteArrayOutputStream edited = new ByteArrayOutputStream(content.length + LINE_LENGTH);
+        switch (edit) {
+            case "append":
+                edited.write(content, 0, content.length);
+                edited.write(line, 0, line.length);
+                return edited.toByteArray();
+            case "insert":
+                edited.write(content, 0, middle);
+                edited.write(line, 0, line.length);
+                edited.write(content, middle, content.length - middle);
+                return edited.toByteArray();
+            case "replace":
+                byte[] replaced = Arrays.copyOf(content, content.length);
+                System.arraycopy(line, 0, replaced, middle, Math.min(line.length, content.length - middle));
+                return replaced;
+            case "scattered":
+                byte[] scattered = Arrays.copyOf(content, content.length);
+                for (int i = 0; i < 16; i++) {
+                    scattered[(int)((long)content.length * i / 16) + random.nextInt(content.length / 16)] ^= 1;
+                }
+                return scattered;
+            case "rewrite":
+                return text(content.length, random);
+            default:
+                throw new IllegalArgumentException("Unknown edit " + edit);
+        }
+    }
+
+    /**
+     * Returns lines of random identifiers, the way generated sources look.
+     */
+    private static byte[] text(int length, Random random) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            int lineEnd = Math.min(text.length() + LINE_LENGTH - 1, length - 1);
+            while (text.length() < lineEnd) {
+                text.append(random.nextInt(8) == 0 ? ' ' : (char)('a' + random.nextInt(26)));
+            }
+            text.append('\n');
+        }
+        return text.toString().getBytes(Charsets.US_ASCII);
+    }
+}
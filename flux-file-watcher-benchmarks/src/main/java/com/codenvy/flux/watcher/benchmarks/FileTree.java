@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.benchmarks;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+/**
+ * A project tree generated for a benchmark, on a {@code tmpfs} mount or on an in-memory Jimfs file system. Every
+ * directory holds {@code width} subdirectories down to {@code depth} levels and {@code files} files of {@code fileSize}
+ * random bytes. Files are dated an hour back so their hashes are indexed, like those of a project at rest. The hash
+ * index is kept next to the tree and deleted with it.
+ */
+public class FileTree {
+    public static final String TMPFS = "tmpfs";
+    public static final String JIMFS = "jimfs";
+
+    /**
+     * Where {@code tmpfs} trees are created, {@code /dev/shm} when it exists and the temporary directory otherwise.
+     */
+    public static final String TMPFS_DIRECTORY = "flux.benchmarks.tmpfs";
+
+    private final FileSystem fileSystem;
+
+    private final Path root;
+
+    private final Path indexDirectory;
+
+    private final List<String> files = newArrayList();
+
+    private FileTree(FileSystem fileSystem, Path root) {
+        this.fileSystem = fileSystem;
+        this.root = root;
+        this.indexDirectory = root.resolveSibling(root.getFileName() + "-index");
+    }
+
+    public static FileTree create(String type, int depth, int width, int files, int fileSize) throws IOException {
+        FileTree tree;
+        if (JIMFS.equals(type)) {
+            FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix());
+            tree = new FileTree(fileSystem, Files.createDirectories(fileSystem.getPath("/project")));
+        } else if (TMPFS.equals(type)) {
+            Path parent = Paths.get(System.getProperty(TMPFS_DIRECTORY, Files.isDirectory(Paths.get("/dev/shm"))
+                                                                        ? "/dev/shm" : System.getProperty("java.io.tmpdir")));
+            tree = new FileTree(FileSystems.getDefault(), Files.createTempDirectory(parent, "flux-benchmark"));
+        } else {
+            throw new IllegalArgumentException("Unknown file system " + type);
+        }
+        tree.populate(tree.root, depth, width, files, fileSize, new Random(42));
+        return tree;
+    }
+
+    public FileSystem getFileSystem() {
+        return fileSystem;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public Path getIndexDirectory() {
+        return indexDirectory;
+    }
+
+    /**
+     * Returns the paths of the generated files, relative to the root.
+     */
+    public List<String> getFiles() {
+        return files;
+    }
+
+    public void delete() throws IOException {
+        if (fileSystem != FileSystems.getDefault()) {
+            fileSystem.close();
+            return;
+        }
+        delete(root);
+        if (Files.exists(indexDirectory))
+            delete(indexDirectory);
+    }
+
+    private static void delete(Path path) throws IOException {
+        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return super.visitFile(file, attrs);
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return super.postVisitDirectory(dir, exc);
+            }
+        });
+    }
+
+    private void populate(Path dir, int depth, int width, int fileCount, int fileSize, Random random) throws IOException {
+        FileTime time = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+        for (int i = 0; i < fileCount; i++) {
+            byte[] content = new byte[fileSize];
+            random.nextBytes(content);
+            Path file = Files.write(dir.resolve("file" + i + ".bin"), content);
+            Files.setLastModifiedTime(file, time);
+            files.add(root.relativize(file).toString());
+        }
+        if (depth > 0) {
+            for (int i = 0; i < width; i++) {
+                populate(Files.createDirectory(dir.resolve("dir" + i)), depth - 1, width, fileCount, fileSize, random);
+            }
+        }
+    }
+}
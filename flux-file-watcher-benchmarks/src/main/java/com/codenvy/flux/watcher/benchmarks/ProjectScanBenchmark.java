@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.benchmarks;
+
+import com.codenvy.flux.watcher.core.model.Project;
+import com.codenvy.flux.watcher.core.model.Resource;
+import com.codenvy.flux.watcher.core.repository.ProjectRepository;
+import com.codenvy.flux.watcher.core.service.ResourceService;
+import com.codenvy.flux.watcher.fs.index.ResourceIndex;
+import com.codenvy.flux.watcher.fs.scanner.ProjectScanner;
+import com.codenvy.flux.watcher.fs.service.WatcherServiceImpl;
+import com.google.inject.Injector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning a project with {@link ResourceService#findAll(Project)} on a cold index, every file is read and hashed, with
+ * the {@link ProjectScanner} pool sized by {@link ProjectScanner#PARALLELISM}. A parallelism of {@code 0} stands for
+ * the number of available processors. The index is emptied before every scan, the files stay in the page cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ProjectScanBenchmark {
+    @Param({"1", "2", "4", "0"})
+    private int parallelism;
+
+    @Param({FileTree.TMPFS})
+    private String fileSystem;
+
+    @Param({"3"})
+    private int depth;
+
+    @Param({"4"})
+    private int width;
+
+    @Param({"32"})
+    private int files;
+
+    @Param({"8192"})
+    private int fileSize;
+
+    private FileTree tree;
+
+    private Project project;
+
+    private Path projectPath;
+
+    private ResourceService resourceService;
+
+    private ResourceIndex resourceIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tree = FileTree.create(fileSystem, depth, width, files, fileSize);
+        int poolSize = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        System.setProperty(ProjectScanner.PARALLELISM, String.valueOf(poolSize));
+        Injector injector = BenchmarkModule.createInjector(tree, WatcherServiceImpl.class);
+        project = new Project().setName("benchmark").setPath(tree.getRoot().toString());
+        projectPath = tree.getRoot();
+        injector.getInstance(ProjectRepository.class).save(project);
+        resourceService = injector.getInstance(ResourceService.class);
+        resourceIndex = injector.getInstance(ResourceIndex.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearIndex() {
+        resourceIndex.retainAll(projectPath, Collections.<String>emptySet());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.clearProperty(ProjectScanner.PARALLELISM);
+        tree.delete();
+    }
+
+    @Benchmark
+    public Set<Resource> findAllColdIndex() {
+        return resourceService.findAll(project);
+    }
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.benchmarks;
+
+import com.codenvy.flux.watcher.core.enums.ResourceType;
+import com.codenvy.flux.watcher.core.model.Project;
+import com.codenvy.flux.watcher.core.model.Resource;
+import com.codenvy.flux.watcher.core.repository.ProjectRepository;
+import com.codenvy.flux.watcher.core.service.ResourceService;
+import com.codenvy.flux.watcher.fs.io.AtomicFileWriter;
+import com.codenvy.flux.watcher.fs.service.WatcherServiceImpl;
+import com.google.inject.Injector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of incoming writes through {@link ResourceService#save(Resource)}: a content differing from the file on
+ * disk is written by the {@link AtomicFileWriter}, the content the file already has is only hashed and compared with
+ * the index. Files are saved round robin so every write replaces a file at rest. Point
+ * {@link FileTree#TMPFS_DIRECTORY} at a disk backed directory to include the cost of forcing the content to disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ResourceSaveBenchmark {
+    @Param({FileTree.TMPFS, FileTree.JIMFS})
+    private String fileSystem;
+
+    @Param({"1024", "1048576"})
+    private int fileSize;
+
+    @Param({"16"})
+    private int files;
+
+    private FileTree tree;
+
+    private Project project;
+
+    private ResourceService resourceService;
+
+    private List<String> paths;
+
+    private byte[][] contents;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tree = FileTree.create(fileSystem, 0, 0, files, fileSize);
+        Injector injector = BenchmarkModule.createInjector(tree, WatcherServiceImpl.class);
+        project = new Project().setName("benchmark").setPath(tree.getRoot().toString());
+        injector.getInstance(ProjectRepository.class).save(project);
+        resourceService = injector.getInstance(ResourceService.class);
+        resourceService.findAll(project);
+        paths = tree.getFiles();
+        contents = new byte[paths.size()][];
+        for (int i = 0; i < paths.size(); i++) {
+            contents[i] = Files.readAllBytes(tree.getRoot().resolve(paths.get(i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        tree.delete();
+    }
+
+    @Benchmark
+    public boolean saveChanged() {
+        int index = nextIndex();
+        // a content differing from the one on disk, one byte is enough for the hashes to differ
+        contents[index][0]++;
+        return resourceService.save(resource(index));
+    }
+
+    @Benchmark
+    public boolean saveUnchanged() {
+        return resourceService.save(resource(nextIndex()));
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % paths.size();
+        return next;
+    }
+
+    private Resource resource(int index) {
+        return new Resource(paths.get(index), project.getName()).setType(ResourceType.FILE).setContent(contents[index]);
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.benchmarks;
+
+import com.codenvy.flux.watcher.core.model.Project;
+import com.codenvy.flux.watcher.core.model.Resource;
+import com.codenvy.flux.watcher.core.repository.ProjectRepository;
+import com.codenvy.flux.watcher.core.service.ResourceService;
+import com.codenvy.flux.watcher.fs.service.WatcherServiceImpl;
+import com.google.inject.Injector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning a project with {@link ResourceService#findAll(Project)} and reading single resources with
+ * {@link ResourceService#find(Resource, boolean)}, on trees shaped by the parameters. The tree is scanned once before
+ * measuring so hashes come from the index, as they do once a project is connected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ResourceServiceBenchmark {
+    @Param({FileTree.TMPFS, FileTree.JIMFS})
+    private String fileSystem;
+
+    @Param({"3"})
+    private int depth;
+
+    @Param({"4"})
+    private int width;
+
+    @Param({"20"})
+    private int files;
+
+    @Param({"4096"})
+    private int fileSize;
+
+    private FileTree tree;
+
+    private Project project;
+
+    private ResourceService resourceService;
+
+    private List<String> paths;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tree = FileTree.create(fileSystem, depth, width, files, fileSize);
+        Injector injector = BenchmarkModule.createInjector(tree, WatcherServiceImpl.class);
+        project = new Project().setName("benchmark").setPath(tree.getRoot().toString());
+        injector.getInstance(ProjectRepository.class).save(project);
+        resourceService = injector.getInstance(ResourceService.class);
+        resourceService.findAll(project);
+        paths = tree.getFiles();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        tree.delete();
+    }
+
+    @Benchmark
+    public Set<Resource> findAll() {
+        return resourceService.findAll(project);
+    }
+
+    @Benchmark
+    public Resource find() {
+        return resourceService.find(nextResource(), false);
+    }
+
+    @Benchmark
+    public Resource findWithContent() {
+        return resourceService.find(nextResource(), true);
+    }
+
+    private Resource nextResource() {
+        next = (next + 1) % paths.size();
+        return new Resource(paths.get(next), project.getName());
+    }
+}
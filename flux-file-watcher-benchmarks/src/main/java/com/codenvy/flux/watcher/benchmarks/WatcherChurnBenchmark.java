@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.benchmarks;
+
+import com.codenvy.flux.watcher.core.enums.EventType;
+import com.codenvy.flux.watcher.core.event.LocalResourceEvent;
+import com.codenvy.flux.watcher.core.model.Project;
+import com.codenvy.flux.watcher.core.repository.ProjectRepository;
+import com.codenvy.flux.watcher.core.service.WatcherService;
+import com.codenvy.flux.watcher.fs.service.InotifyWatcherServiceImpl;
+import com.codenvy.flux.watcher.fs.service.WatcherServiceImpl;
+import com.codenvy.flux.watcher.fs.watcher.EventCoalescer;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.Service;
+import com.google.inject.Injector;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bursts of file creations in a watched directory, timed until the {@link EventBus} delivered a create event for every
+ * file or no event came for {@link #SETTLE_MILLISECONDS}. The files never reported are counted as lost, an overflow of
+ * the queue of the backend is recovered by a rescan when the backend notices it. {@code created} and {@code lost} are
+ * reported next to the bursts per second, their ratio is the share of the events lost. The tree is on {@code tmpfs},
+ * the coalescer posts every raw event right away.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WatcherChurnBenchmark {
+    private static final Map<String, Class<? extends WatcherService>> BACKENDS =
+            ImmutableMap.of("jdk", WatcherServiceImpl.class,
+                            "inotify", InotifyWatcherServiceImpl.class);
+
+    private static final long SETTLE_MILLISECONDS = 1000;
+
+    @Param({"jdk", "inotify"})
+    private String watcher;
+
+    /**
+     * Files created per burst, the JDK watch service of Linux overflows past 512 pending events.
+     */
+    @Param({"100", "2000"})
+    private int burst;
+
+    private final BlockingQueue<String> createdPaths = new LinkedBlockingQueue<>();
+
+    private FileTree tree;
+
+    private Project project;
+
+    private WatcherService watcherService;
+
+    private Path directory;
+
+    private int next;
+
+    @State(Scope.Thread)
+    @AuxCounters
+    public static class Counters {
+        public long created;
+
+        public long lost;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            created = 0;
+            lost = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tree = FileTree.create(FileTree.TMPFS, 0, 0, 0, 0);
+        directory = Files.createDirectory(tree.getRoot().resolve("churn"));
+        System.setProperty(EventCoalescer.QUIET_WINDOW, "0");
+        Injector injector = BenchmarkModule.createInjector(tree, BACKENDS.get(watcher));
+        project = new Project().setName("benchmark").setPath(tree.getRoot().toString());
+        injector.getInstance(ProjectRepository.class).save(project);
+        injector.getInstance(EventBus.class).register(this);
+        watcherService = injector.getInstance(WatcherService.class);
+        watcherService.watch(project);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clean() throws IOException, InterruptedException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        // lets the delete events go by before the next iteration
+        Thread.sleep(SETTLE_MILLISECONDS);
+        createdPaths.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        watcherService.unwatch(project);
+        if (watcherService instanceof Service)
+            ((Service)watcherService).stopAsync();
+        tree.delete();
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onLocalEvent(LocalResourceEvent event) {
+        if (event.getType() == EventType.CREATE)
+            createdPaths.offer(event.getResource().getPath());
+    }
+
+    @Benchmark
+    public int createBurst(Counters counters) throws IOException, InterruptedException {
+        Set<String> expected = Sets.newHashSetWithExpectedSize(burst);
+        for (int i = 0; i < burst; i++) {
+            String name = "file" + next++;
+            Files.createFile(directory.resolve(name));
+            expected.add("churn/" + name);
+        }
+        while (!expected.isEmpty()) {
+            String path = createdPaths.poll(SETTLE_MILLISECONDS, TimeUnit.MILLISECONDS);
+            if (path == null)
+                break;
+            expected.remove(path);
+        }
+        counters.created += burst;
+        counters.lost += expected.size();
+        return expected.size();
+    }
+}
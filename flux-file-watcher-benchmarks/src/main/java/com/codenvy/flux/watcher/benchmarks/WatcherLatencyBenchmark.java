@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.benchmarks;
+
+import com.codenvy.flux.watcher.core.event.LocalResourceEvent;
+import com.codenvy.flux.watcher.core.model.Project;
+import com.codenvy.flux.watcher.core.repository.ProjectRepository;
+import com.codenvy.flux.watcher.core.service.WatcherService;
+import com.codenvy.flux.watcher.fs.io.ContentHasher;
+import com.codenvy.flux.watcher.fs.service.InotifyWatcherServiceImpl;
+import com.codenvy.flux.watcher.fs.service.PollingWatcherServiceImpl;
+import com.codenvy.flux.watcher.fs.service.WatcherServiceImpl;
+import com.codenvy.flux.watcher.fs.watcher.EventCoalescer;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.Service;
+import com.google.inject.Injector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from writing a file in a watched project until the {@link EventBus} delivers the {@link LocalResourceEvent}
+ * carrying the hash of the written content, through the raw events of the backend, the {@link EventCoalescer} and the
+ * bus. The tree is on {@code tmpfs} only, the Jimfs watch service polls every few seconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WatcherLatencyBenchmark {
+    private static final Map<String, Class<? extends WatcherService>> BACKENDS =
+            ImmutableMap.of("jdk", WatcherServiceImpl.class,
+                            "inotify", InotifyWatcherServiceImpl.class,
+                            "polling", PollingWatcherServiceImpl.class);
+
+    private static final long TIMEOUT_SECONDS = 30;
+
+    @Param({"jdk", "inotify", "polling"})
+    private String watcher;
+
+    /**
+     * Quiet window of the coalescer in milliseconds, with zero every raw event is posted right away.
+     */
+    @Param({"0", "200"})
+    private long quietWindow;
+
+    @Param({"1024"})
+    private int fileSize;
+
+    private final BlockingQueue<String> receivedHashes = new LinkedBlockingQueue<>();
+
+    private FileTree tree;
+
+    private Project project;
+
+    private WatcherService watcherService;
+
+    private Path file;
+
+    private String path;
+
+    private byte[] content;
+
+    private int version;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tree = FileTree.create(FileTree.TMPFS, 1, 4, 10, fileSize);
+        System.setProperty(EventCoalescer.QUIET_WINDOW, String.valueOf(quietWindow));
+        Injector injector = BenchmarkModule.createInjector(tree, BACKENDS.get(watcher));
+        project = new Project().setName("benchmark").setPath(tree.getRoot().toString());
+        injector.getInstance(ProjectRepository.class).save(project);
+        injector.getInstance(EventBus.class).register(this);
+        watcherService = injector.getInstance(WatcherService.class);
+        watcherService.watch(project);
+        path = tree.getFiles().get(0);
+        file = tree.getRoot().resolve(path);
+        content = Files.readAllBytes(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        watcherService.unwatch(project);
+        if (watcherService instanceof Service)
+            ((Service)watcherService).stopAsync();
+        tree.delete();
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onLocalEvent(LocalResourceEvent event) {
+        if (path.equals(event.getResource().getPath()))
+            receivedHashes.offer(String.valueOf(event.getResource().getHash()));
+    }
+
+    @Benchmark
+    public String modify() throws IOException, InterruptedException {
+        // a distinct content for every write, events of earlier writes are told apart by their hash
+        content[version++ % content.length]++;
+        String hash = ContentHasher.hash(content);
+        Files.write(file, content);
+        String received;
+        do {
+            received = receivedHashes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (received == null)
+                throw new IllegalStateException("No event received for " + path + " within " + TIMEOUT_SECONDS + "s");
+        } while (!hash.equals(received));
+        return received;
+    }
+}
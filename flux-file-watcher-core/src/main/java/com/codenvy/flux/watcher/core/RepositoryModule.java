@@ -10,8 +10,15 @@
  *******************************************************************************/
 package com.codenvy.flux.watcher.core;
 
+import com.codenvy.flux.watcher.core.compression.CompressionService;
+import com.codenvy.flux.watcher.core.compression.DeflateCodec;
+import com.codenvy.flux.watcher.core.connection.impl.MessageBatcher;
+import com.codenvy.flux.watcher.core.event.BoundedEventBus;
+import com.codenvy.flux.watcher.core.event.ProjectEvent;
+import com.codenvy.flux.watcher.core.handler.KeyOrderedExecutor;
 import com.codenvy.flux.watcher.core.handler.ProjectHandler;
 import com.codenvy.flux.watcher.core.handler.ResourceHandler;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
 import com.codenvy.flux.watcher.core.repository.ProjectRepository;
 import com.codenvy.flux.watcher.core.repository.impl.ProjectRepositoryImpl;
 import com.codenvy.flux.watcher.core.service.ConnectionService;
@@ -19,10 +26,15 @@ import com.codenvy.flux.watcher.core.service.ProjectService;
 import com.codenvy.flux.watcher.core.service.impl.ConnectionServiceImpl;
 import com.codenvy.flux.watcher.core.service.impl.ProjectServiceImpl;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
+import com.google.inject.name.Names;
 
+import javax.inject.Named;
 import javax.inject.Singleton;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Guice bindings for {@link RepositoryModule}.
@@ -37,11 +49,50 @@ public class RepositoryModule extends AbstractModule {
         bind(ProjectRepository.class).to(ProjectRepositoryImpl.class);
         bind(ProjectHandler.class).asEagerSingleton();
         bind(ResourceHandler.class).asEagerSingleton();
+
+        bindConstant().annotatedWith(Names.named(ProjectHandler.PAGE_SIZE))
+                      .to(Integer.getInteger(ProjectHandler.PAGE_SIZE, ProjectEvent.DEFAULT_PAGE_SIZE));
+        bindConstant().annotatedWith(Names.named(ResourceHandler.DELTA_MIN_SIZE))
+                      .to(Integer.getInteger(ResourceHandler.DELTA_MIN_SIZE, 64 * 1024));
+        bindConstant().annotatedWith(Names.named(CompressionService.CODEC))
+                      .to(System.getProperty(CompressionService.CODEC, DeflateCodec.NAME));
+        bindConstant().annotatedWith(Names.named(CompressionService.MIN_SIZE))
+                      .to(Integer.getInteger(CompressionService.MIN_SIZE, 1024));
+        bindConstant().annotatedWith(Names.named(CompressionService.SKIP_EXTENSIONS))
+                      .to(System.getProperty(CompressionService.SKIP_EXTENSIONS,
+                                             "zip,jar,war,gz,tgz,bz2,xz,7z,rar,png,jpg,jpeg,gif,webp,mp3,mp4,woff,woff2"));
+        bindConstant().annotatedWith(Names.named(KeyOrderedExecutor.STRIPES))
+                      .to(Integer.getInteger(KeyOrderedExecutor.STRIPES, Runtime.getRuntime().availableProcessors()));
+        bindConstant().annotatedWith(Names.named(KeyOrderedExecutor.QUEUE_SIZE))
+                      .to(Integer.getInteger(KeyOrderedExecutor.QUEUE_SIZE, 1000));
+        bindConstant().annotatedWith(Names.named(MessageBatcher.MAX_BATCH_SIZE))
+                      .to(Integer.getInteger(MessageBatcher.MAX_BATCH_SIZE, 1));
+        bindConstant().annotatedWith(Names.named(MessageBatcher.MAX_LATENCY))
+                      .to(Long.getLong(MessageBatcher.MAX_LATENCY, 20L));
+        bindConstant().annotatedWith(Names.named(BoundedEventBus.WORKERS))
+                      .to(Integer.getInteger(BoundedEventBus.WORKERS, 1));
+        bindConstant().annotatedWith(Names.named(BoundedEventBus.CAPACITY))
+                      .to(Integer.getInteger(BoundedEventBus.CAPACITY, 10000));
+        bindConstant().annotatedWith(Names.named(BoundedEventBus.POLICY))
+                      .to(System.getProperty(BoundedEventBus.POLICY, BoundedEventBus.Policy.BLOCK.name()));
+        bindConstant().annotatedWith(Names.named(MetricsRegistry.JMX_DOMAIN))
+                      .to(System.getProperty(MetricsRegistry.JMX_DOMAIN, "com.codenvy.flux"));
     }
 
+    /**
+     * Events are dispatched on {@link BoundedEventBus#WORKERS} threads, with no worker they are dispatched on the
+     * posting thread.
+     */
     @Singleton
     @Provides
-    protected EventBus provideEventBus() {
-        return new EventBus();
+    protected EventBus provideEventBus(@Named(BoundedEventBus.WORKERS) int workers,
+                                       @Named(BoundedEventBus.CAPACITY) int capacity,
+                                       @Named(BoundedEventBus.POLICY) String policy,
+                                       MetricsRegistry metrics) {
+        if (workers <= 0)
+            return new EventBus();
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("flux-eventbus-%d").setDaemon(true).build();
+        return new BoundedEventBus(Executors.newFixedThreadPool(workers, threadFactory), workers, capacity,
+                                   BoundedEventBus.Policy.valueOf(policy.toUpperCase()), metrics);
     }
 }
\ No newline at end of file
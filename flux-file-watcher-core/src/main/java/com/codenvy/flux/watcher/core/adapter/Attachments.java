@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.adapter;
+
+import com.google.common.collect.Lists;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Binary attachments of a message. The bytes are kept out of the Gson tree of the message, which holds a
+ * {@code {"_placeholder": true, "num": n}} object in their place, the way socket.io encodes binary events. The
+ * socket.io connection sends every attachment as a binary frame next to the JSON.
+ */
+public final class Attachments {
+    private static final String PLACEHOLDER = "_placeholder";
+    private static final String NUM         = "num";
+
+    private final List<byte[]> attachments = Lists.newArrayList();
+
+    /**
+     * Adds the given bytes and returns their index.
+     */
+    public int add(byte[] bytes) {
+        attachments.add(bytes);
+        return attachments.size() - 1;
+    }
+
+    /**
+     * Returns the attachment with the given index, or {@code null} if there is none.
+     */
+    public byte[] get(int num) {
+        return num >= 0 && num < attachments.size() ? attachments.get(num) : null;
+    }
+
+    public int size() {
+        return attachments.size();
+    }
+
+    /**
+     * Adds the given bytes and writes their placeholder. A {@link JsonWireWriter} builds the message socket.io sends,
+     * it takes the bytes themselves.
+     */
+    public void write(JsonWriter out, byte[] bytes) throws IOException {
+        if (out instanceof JsonWireWriter) {
+            ((JsonWireWriter)out).value(bytes);
+            return;
+        }
+        out.beginObject().name(PLACEHOLDER).value(true).name(NUM).value(add(bytes)).endObject();
+    }
+
+    /**
+     * Reads a placeholder and returns the attachment it references.
+     */
+    public byte[] read(JsonReader in) throws IOException {
+        int num = -1;
+        in.beginObject();
+        while (in.hasNext()) {
+            if (NUM.equals(in.nextName())) {
+                num = in.nextInt();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return get(num);
+    }
+
+    public static JsonObject placeholder(int num) {
+        JsonObject placeholder = new JsonObject();
+        placeholder.addProperty(PLACEHOLDER, true);
+        placeholder.addProperty(NUM, num);
+        return placeholder;
+    }
+
+    /**
+     * Returns the index referenced by the given node, or -1 if it is no placeholder.
+     */
+    public static int indexOf(JsonElement element) {
+        if (!element.isJsonObject())
+            return -1;
+        JsonObject object = element.getAsJsonObject();
+        if (!object.has(PLACEHOLDER) || !object.has(NUM) || !object.get(NUM).isJsonPrimitive())
+            return -1;
+        return object.get(NUM).getAsInt();
+    }
+}
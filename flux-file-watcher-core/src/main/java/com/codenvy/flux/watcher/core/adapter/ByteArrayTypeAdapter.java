@@ -1,17 +1,51 @@
 package com.codenvy.flux.watcher.core.adapter;
 
-import com.google.gson.*;
+import com.google.common.io.BaseEncoding;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+
+/**
+ * Bytes are written as {@link Attachments} when the message has any, as base64 text otherwise. Both forms are read.
+ */
+public class ByteArrayTypeAdapter extends TypeAdapter<byte[]> {
+    private final Attachments attachments;
+
+    public ByteArrayTypeAdapter() {
+        this(null);
+    }
+
+    public ByteArrayTypeAdapter(Attachments attachments) {
+        this.attachments = attachments;
+    }
 
-public class ByteArrayTypeAdapter implements JsonSerializer<byte[]>, JsonDeserializer<byte[]> {
     @Override
-    public byte[] deserialize(JsonElement element, Type type, JsonDeserializationContext content) throws JsonParseException {
-        return element.getAsString().getBytes();
+    public void write(JsonWriter out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.nullValue();
+        } else if (attachments != null) {
+            attachments.write(out, bytes);
+        } else {
+            out.value(BaseEncoding.base64().encode(bytes));
+        }
     }
 
     @Override
-    public JsonElement serialize(byte[] bytes, Type type, JsonSerializationContext jsonSerializationContext) {
-        return new JsonPrimitive(new String(bytes));
+    public byte[] read(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BEGIN_OBJECT:
+                if (attachments == null) {
+                    in.skipValue();
+                    return null;
+                }
+                return attachments.read(in);
+            default:
+                return BaseEncoding.base64().decode(in.nextString());
+        }
     }
-}
\ No newline at end of file
+}
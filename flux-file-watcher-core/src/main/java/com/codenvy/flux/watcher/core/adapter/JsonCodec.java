@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.adapter;
+
+import com.codenvy.flux.watcher.core.model.Resource;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * The Gson instance shared by all events. Gson is thread safe and caches the adapters it builds, creating one per event
+ * would rebuild them for every message.
+ */
+public final class JsonCodec {
+    public static final Gson GSON = new GsonBuilder().registerTypeAdapter(Resource.class, new ResourceTypeAdapter())
+                                                     .registerTypeAdapter(byte[].class, new ByteArrayTypeAdapter())
+                                                     .create();
+
+    private JsonCodec() {
+    }
+
+    /**
+     * Streams the given value into the {@code org.json} tree socket.io sends.
+     */
+    public static Object toWire(Object value, Type type) {
+        JsonWireWriter out = new JsonWireWriter();
+        write(out, value, type);
+        return out.get();
+    }
+
+    /**
+     * Streams the given value with the given adapter into the {@code org.json} tree socket.io sends.
+     */
+    public static <T> Object toWire(TypeAdapter<T> adapter, T value) {
+        JsonWireWriter out = new JsonWireWriter();
+        try {
+            adapter.write(out, value);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return out.get();
+    }
+
+    /**
+     * Streams the given value into the given writer, as part of a larger message.
+     */
+    public static void write(JsonWriter out, Object value, Type type) {
+        GSON.toJson(value, type, out);
+    }
+
+    public static <T> T fromTree(JsonElement element, Type type) {
+        if (element == null)
+            return null;
+        return GSON.fromJson(element, type);
+    }
+}
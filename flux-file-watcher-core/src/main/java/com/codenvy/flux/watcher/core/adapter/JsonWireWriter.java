@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.adapter;
+
+import com.google.common.collect.Lists;
+import com.google.gson.stream.JsonWriter;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Builds the {@code org.json} tree socket.io sends straight from the values written to it, so type adapters stream a
+ * message into its wire form without a Gson tree in between. Bytes written with {@link #value(byte[])}, as
+ * {@link Attachments} do, stay {@code byte[]} values, which socket.io sends as binary attachments.
+ */
+public class JsonWireWriter extends JsonWriter {
+    private static final Writer UNWRITABLE_WRITER = new Writer() {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void flush() {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void close() {
+            throw new AssertionError();
+        }
+    };
+
+    /**
+     * The objects and arrays being written, innermost last.
+     */
+    private final List<Object> stack = Lists.newArrayList();
+
+    private String pendingName;
+
+    private Object product = JSONObject.NULL;
+
+    public JsonWireWriter() {
+        super(UNWRITABLE_WRITER);
+    }
+
+    /**
+     * Returns the written value, a {@link JSONObject}, a {@link JSONArray}, a primitive or {@link JSONObject#NULL}.
+     */
+    public Object get() {
+        if (!stack.isEmpty() || pendingName != null)
+            throw new IllegalStateException("Incomplete document");
+        return product;
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        JSONArray array = new JSONArray();
+        put(array);
+        stack.add(array);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        if (stack.isEmpty() || pendingName != null || !(peek() instanceof JSONArray))
+            throw new IllegalStateException();
+        stack.remove(stack.size() - 1);
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        JSONObject object = new JSONObject();
+        put(object);
+        stack.add(object);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        if (stack.isEmpty() || pendingName != null || !(peek() instanceof JSONObject))
+            throw new IllegalStateException();
+        stack.remove(stack.size() - 1);
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+        if (stack.isEmpty() || pendingName != null || !(peek() instanceof JSONObject))
+            throw new IllegalStateException();
+        pendingName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value == null)
+            return nullValue();
+        put(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        put(JSONObject.NULL);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        put(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        if (!isLenient() && (Double.isNaN(value) || Double.isInfinite(value)))
+            throw new IllegalArgumentException("JSON forbids NaN and infinities: " + value);
+        put(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        put(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null)
+            return nullValue();
+        if (!isLenient()) {
+            double d = value.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d))
+                throw new IllegalArgumentException("JSON forbids NaN and infinities: " + value);
+        }
+        put(value);
+        return this;
+    }
+
+    /**
+     * Writes the given bytes as a {@code byte[]} value.
+     */
+    public JsonWriter value(byte[] value) throws IOException {
+        if (value == null)
+            return nullValue();
+        put(value);
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!stack.isEmpty())
+            throw new IOException("Incomplete document");
+    }
+
+    private Object peek() {
+        return stack.get(stack.size() - 1);
+    }
+
+    private void put(Object value) throws IOException {
+        try {
+            if (pendingName != null) {
+                if (value != JSONObject.NULL || getSerializeNulls())
+                    ((JSONObject)peek()).put(pendingName, value);
+                pendingName = null;
+            } else if (stack.isEmpty()) {
+                product = value;
+            } else if (peek() instanceof JSONArray) {
+                ((JSONArray)peek()).put(value);
+            } else {
+                throw new IllegalStateException();
+            }
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -1,26 +1,269 @@
 package com.codenvy.flux.watcher.core.adapter;
 
+import com.codenvy.flux.watcher.core.delta.BlockSignatures;
+import com.codenvy.flux.watcher.core.delta.Delta;
+import com.codenvy.flux.watcher.core.enums.ResourceType;
 import com.codenvy.flux.watcher.core.model.Resource;
-import com.google.gson.*;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.BaseEncoding;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
 
-public class ResourceTypeAdapter implements JsonSerializer<Resource>, JsonDeserializer<Resource> {
-    private Gson gson = new GsonBuilder().registerTypeAdapter(byte[].class, new ByteArrayTypeAdapter()).create();
+/**
+ * Streams resources field by field. The path is written both as {@code resource} and as {@code path}, when both are
+ * read {@code path} wins.
+ * <p/>
+ * Content is written as an attachment when the resource allows it and the message has {@link Attachments}. Otherwise
+ * plain content that is valid UTF-8 is written as text, compressed content as base64 and any other content as base64
+ * with {@link #BASE64_ENCODING} as encoding, so every path keeps the bytes exact. Signatures and deltas, only exchanged
+ * with peers supporting them, are attachments whenever the message has any.
+ */
+public class ResourceTypeAdapter extends TypeAdapter<Resource> {
+    /**
+     * Encoding of plain content that is not valid UTF-8, written as base64.
+     */
+    public static final String BASE64_ENCODING = "base64";
+
+    private final Attachments attachments;
+
+    private final ByteArrayTypeAdapter byteArrayTypeAdapter;
+
+    public ResourceTypeAdapter() {
+        this(null);
+    }
+
+    public ResourceTypeAdapter(Attachments attachments) {
+        this.attachments = attachments;
+        this.byteArrayTypeAdapter = new ByteArrayTypeAdapter(attachments);
+    }
 
     @Override
-    public JsonElement serialize(Resource resource, Type type, JsonSerializationContext context) {
-        JsonObject jsonObject = gson.toJsonTree(resource).getAsJsonObject();
-        jsonObject.addProperty("path", jsonObject.get("resource").getAsString());
-        return jsonObject;
+    public void write(JsonWriter out, Resource resource) throws IOException {
+        if (resource == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeString(out, "resource", resource.getPath());
+        writeString(out, "project", resource.getProjectName());
+        if (resource.getTimestamp() != null)
+            out.name("timestamp").value(resource.getTimestamp());
+        if (resource.getType() != null)
+            out.name("type").value(resource.getType().name().toLowerCase());
+        writeString(out, "hash", resource.getHash());
+        String encoding = resource.getEncoding();
+        if (resource.getContent() != null) {
+            out.name("content");
+            String text;
+            if (resource.isAttachContent() && attachments != null) {
+                attachments.write(out, resource.getContent());
+            } else if (encoding == null && (text = decodeUtf8(resource.getContent())) != null) {
+                out.value(text);
+            } else {
+                if (encoding == null)
+                    encoding = BASE64_ENCODING;
+                out.value(BaseEncoding.base64().encode(resource.getContent()));
+            }
+        }
+        writeString(out, "encoding", encoding);
+        if (resource.getAcceptEncoding() != null) {
+            out.name("acceptEncoding").beginArray();
+            for (String acceptedEncoding : resource.getAcceptEncoding()) {
+                out.value(acceptedEncoding);
+            }
+            out.endArray();
+        }
+        if (resource.isAcceptBinary())
+            out.name("acceptBinary").value(true);
+        writeString(out, "path", resource.getPath());
+        if (resource.getSignatures() != null) {
+            BlockSignatures signatures = resource.getSignatures();
+            out.name("signatures").beginObject();
+            out.name("blockSize").value(signatures.getBlockSize());
+            out.name("sums");
+            byteArrayTypeAdapter.write(out, signatures.getSums());
+            out.endObject();
+        }
+        if (resource.getDelta() != null) {
+            Delta delta = resource.getDelta();
+            out.name("delta").beginObject();
+            out.name("blockSize").value(delta.getBlockSize());
+            out.name("length").value(delta.getLength());
+            out.name("ops");
+            byteArrayTypeAdapter.write(out, delta.getOps());
+            out.name("data");
+            byteArrayTypeAdapter.write(out, delta.getData());
+            out.endObject();
+        }
+        writeString(out, "error", resource.getError());
+        out.endObject();
     }
 
     @Override
-    public Resource deserialize(JsonElement element, Type type, JsonDeserializationContext context) throws JsonParseException {
-        JsonObject jsonObject = element.getAsJsonObject();
-        Resource resource = gson.fromJson(element, type);
-        if (jsonObject.has("path"))
-            resource.setPath(jsonObject.get("path").getAsString());
+    public Resource read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Resource resource = new Resource();
+        String path = null;
+        String contentText = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "resource":
+                    resource.setPath(in.nextString());
+                    break;
+                case "path":
+                    path = in.nextString();
+                    break;
+                case "project":
+                    resource.setProjectName(in.nextString());
+                    break;
+                case "timestamp":
+                    resource.setTimestamp(in.nextLong());
+                    break;
+                case "type":
+                    resource.setType(readType(in.nextString()));
+                    break;
+                case "hash":
+                    resource.setHash(in.nextString());
+                    break;
+                case "content":
+                    if (in.peek() == JsonToken.STRING) {
+                        contentText = in.nextString();
+                    } else {
+                        resource.setContent(byteArrayTypeAdapter.read(in));
+                    }
+                    break;
+                case "encoding":
+                    resource.setEncoding(in.nextString());
+                    break;
+                case "acceptEncoding":
+                    List<String> encodings = Lists.newArrayList();
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        encodings.add(in.nextString());
+                    }
+                    in.endArray();
+                    resource.setAcceptEncoding(encodings.toArray(new String[encodings.size()]));
+                    break;
+                case "acceptBinary":
+                    resource.setAcceptBinary(in.nextBoolean());
+                    break;
+                case "signatures":
+                    resource.setSignatures(readSignatures(in));
+                    break;
+                case "delta":
+                    resource.setDelta(readDelta(in));
+                    break;
+                case "error":
+                    resource.setError(in.nextString());
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        if (path != null)
+            resource.setPath(path);
+        if (contentText != null) {
+            // content sent as text with an encoding is base64, plain content is the text itself
+            resource.setContent(resource.getEncoding() != null ? BaseEncoding.base64().decode(contentText)
+                                                               : contentText.getBytes(Charsets.UTF_8));
+        }
+        if (BASE64_ENCODING.equals(resource.getEncoding()))
+            resource.setEncoding(null);
         return resource;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the content as text, or {@code null} when it is not valid UTF-8 and would not survive the round trip.
+     */
+    private static String decodeUtf8(byte[] content) {
+        try {
+            return Charsets.UTF_8.newDecoder()
+                                 .onMalformedInput(CodingErrorAction.REPORT)
+                                 .onUnmappableCharacter(CodingErrorAction.REPORT)
+                                 .decode(ByteBuffer.wrap(content))
+                                 .toString();
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+
+    private BlockSignatures readSignatures(JsonReader in) throws IOException {
+        int blockSize = 0;
+        byte[] sums = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "blockSize":
+                    blockSize = in.nextInt();
+                    break;
+                case "sums":
+                    sums = byteArrayTypeAdapter.read(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return sums == null || blockSize <= 0 ? null : new BlockSignatures(blockSize, sums);
+    }
+
+    private Delta readDelta(JsonReader in) throws IOException {
+        int blockSize = 0;
+        int length = 0;
+        byte[] ops = null;
+        byte[] data = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "blockSize":
+                    blockSize = in.nextInt();
+                    break;
+                case "length":
+                    length = in.nextInt();
+                    break;
+                case "ops":
+                    ops = byteArrayTypeAdapter.read(in);
+                    break;
+                case "data":
+                    data = byteArrayTypeAdapter.read(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return ops == null || data == null || blockSize <= 0 ? null : new Delta(blockSize, length, ops, data);
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null)
+            out.name(name).value(value);
+    }
+
+    private static ResourceType readType(String value) {
+        for (ResourceType type : ResourceType.values()) {
+            if (type.name().equalsIgnoreCase(value))
+                return type;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.compression;
+
+import java.io.IOException;
+
+/**
+ * A content encoding resources can be transferred with.
+ */
+public interface CompressionCodec {
+
+    /**
+     * Returns the name peers know the encoding by, sent in the {@code acceptEncoding} and {@code encoding} fields of the
+     * resources.
+     */
+    String getName();
+
+    byte[] compress(byte[] content);
+
+    byte[] decompress(byte[] content) throws IOException;
+}
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.compression;
+
+import com.codenvy.flux.watcher.core.metrics.Gauge;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
+import com.codenvy.flux.watcher.core.model.Resource;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compresses resource content for peers that accept it. Encodings are negotiated per request: resource requests list
+ * the encodings accepted for the response, the response names the one used. Peers that do not know the fields never
+ * list any and get uncompressed content. Content below {@link #MIN_SIZE}, with an extension listed in
+ * {@link #SKIP_EXTENSIONS} or that does not shrink by at least a tenth is sent as is.
+ */
+@Singleton
+public class CompressionService {
+    public static final String CODEC           = "flux.compression.codec";
+    public static final String MIN_SIZE        = "flux.compression.minSize";
+    public static final String SKIP_EXTENSIONS = "flux.compression.skipExtensions";
+
+    private final Map<String, CompressionCodec> codecs = Maps.newConcurrentMap();
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private final AtomicLong compressedCount = new AtomicLong();
+
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+
+    private final AtomicLong compressedBytes = new AtomicLong();
+
+    private final AtomicLong compressNanos = new AtomicLong();
+
+    private final AtomicLong decompressNanos = new AtomicLong();
+
+    @Inject
+    private MetricsRegistry metrics;
+
+    @Inject
+    @Named(CODEC)
+    private String codecName;
+
+    @Inject
+    @Named(MIN_SIZE)
+    private int minSize;
+
+    @Inject
+    @Named(SKIP_EXTENSIONS)
+    private String skipExtensions;
+
+    private Set<String> skippedExtensions;
+
+    @Inject
+    public void init() {
+        register(new DeflateCodec());
+        skippedExtensions = ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(skipExtensions.toLowerCase()));
+        metrics.gauge("compression.compressed", new Gauge() {
+            @Override
+            public double getValue() {
+                return getCompressedCount();
+            }
+        });
+        metrics.gauge("compression.skipped", new Gauge() {
+            @Override
+            public double getValue() {
+                return getSkippedCount();
+            }
+        });
+        metrics.gauge("compression.ratio", new Gauge() {
+            @Override
+            public double getValue() {
+                return getCompressionRatio();
+            }
+        });
+        metrics.gauge("compression.compressNanos", new Gauge() {
+            @Override
+            public double getValue() {
+                return getCompressNanos();
+            }
+        });
+        metrics.gauge("compression.decompressNanos", new Gauge() {
+            @Override
+            public double getValue() {
+                return getDecompressNanos();
+            }
+        });
+    }
+
+    /**
+     * Makes the given codec available, {@link #CODEC} selects the one content is compressed with.
+     */
+    public void register(CompressionCodec codec) {
+        codecs.put(codec.getName(), codec);
+    }
+
+    /**
+     * Lists on a resource request the encodings accepted for the response.
+     */
+    public Resource accept(Resource resource) {
+        return resource.setAcceptEncoding(codecs.keySet().toArray(new String[codecs.size()]));
+    }
+
+    /**
+     * Compresses the content of a resource answering a request that accepted the configured codec.
+     */
+    public void encode(Resource resource, String[] acceptedEncodings) {
+        CompressionCodec codec = codecs.get(codecName);
+        byte[] content = resource.getContent();
+        if (codec == null || content == null || !contains(acceptedEncodings, codec.getName()))
+            return;
+        if (content.length < minSize || skippedExtensions.contains(extension(resource.getPath()))) {
+            skippedCount.incrementAndGet();
+            return;
+        }
+        long start = cpuTime();
+        byte[] compressed = codec.compress(content);
+        compressNanos.addAndGet(cpuTime() - start);
+        if (compressed.length > content.length - content.length / 10) {
+            skippedCount.incrementAndGet();
+            return;
+        }
+        compressedCount.incrementAndGet();
+        uncompressedBytes.addAndGet(content.length);
+        compressedBytes.addAndGet(compressed.length);
+        resource.setContent(compressed).setEncoding(codec.getName());
+    }
+
+    /**
+     * Restores the content of a received resource, returns {@code false} when its encoding is unknown or the content
+     * cannot be decompressed.
+     */
+    public boolean decode(Resource resource) {
+        if (resource.getEncoding() == null || resource.getContent() == null)
+            return true;
+        CompressionCodec codec = codecs.get(resource.getEncoding());
+        if (codec == null)
+            return false;
+        long start = cpuTime();
+        try {
+            resource.setContent(codec.decompress(resource.getContent())).setEncoding(null);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            decompressNanos.addAndGet(cpuTime() - start);
+        }
+    }
+
+    public long getCompressedCount() {
+        return compressedCount.get();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    /**
+     * Returns the size of the compressed content relative to its original size, over everything compressed so far.
+     */
+    public double getCompressionRatio() {
+        long uncompressed = uncompressedBytes.get();
+        return uncompressed == 0 ? 1 : (double)compressedBytes.get() / uncompressed;
+    }
+
+    public long getCompressNanos() {
+        return compressNanos.get();
+    }
+
+    public long getDecompressNanos() {
+        return decompressNanos.get();
+    }
+
+    private long cpuTime() {
+        if (threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled())
+            return threadMXBean.getCurrentThreadCpuTime();
+        return System.nanoTime();
+    }
+
+    private static boolean contains(String[] values, String value) {
+        if (values == null)
+            return false;
+        for (String candidate : values) {
+            if (value.equals(candidate))
+                return true;
+        }
+        return false;
+    }
+
+    private static String extension(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot < 0 || dot < path.lastIndexOf('/') ? "" : path.substring(dot + 1).toLowerCase();
+    }
+}
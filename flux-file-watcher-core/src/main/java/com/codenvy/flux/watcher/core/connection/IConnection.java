@@ -1,6 +1,6 @@
 package com.codenvy.flux.watcher.core.connection;
 
-import com.google.gson.JsonElement;
+import org.json.JSONObject;
 
 public interface IConnection {
 
@@ -12,7 +12,7 @@ public interface IConnection {
 
     void disconnectFromChannel(String channel);
 
-    void sendMessage(String type, JsonElement content);
+    void sendMessage(String type, JSONObject content);
 
     void setListener(IListener listener);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.codenvy.flux.watcher.core.connection;
 
+import com.codenvy.flux.watcher.core.adapter.Attachments;
 import com.codenvy.flux.watcher.core.enums.ConnectionStatus;
 import com.google.gson.JsonElement;
 
@@ -9,5 +10,5 @@ public interface IListener {
 
     void onChannelEvent(ConnectionStatus status, String channel);
 
-    void onMessage(String type, JsonElement content);
+    void onMessage(String type, JsonElement content, Attachments attachments);
 }
\ No newline at end of file
@@ -5,7 +5,6 @@ import com.codenvy.flux.watcher.core.connection.IListener;
 import com.codenvy.flux.watcher.core.event.IEvent;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.gson.JsonParser;
 
 import java.util.Map;
 import java.util.Set;
@@ -14,8 +13,6 @@ public abstract class AbstractConnection implements IConnection {
 
     IListener listener;
 
-    JsonParser parser = new JsonParser();
-
     Set<String> channels = Sets.newHashSet();
 
     Map<String, IEvent> eventMap = Maps.newHashMap();
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.connection.impl;
+
+import com.codenvy.flux.watcher.core.adapter.Attachments;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+
+/**
+ * Converts the {@code org.json} trees socket.io receives into the Gson trees the events are read from, node by node,
+ * without printing and parsing JSON text in between. The {@code byte[]} values of binary attachments map to
+ * placeholders of {@link Attachments}. Sent messages need no conversion, they are streamed into {@code org.json} by
+ * {@link com.codenvy.flux.watcher.core.adapter.JsonWireWriter}.
+ */
+public final class JsonConverter {
+
+    private JsonConverter() {
+    }
+
+    public static JsonElement toGson(Object value, Attachments attachments) throws JSONException {
+        if (value == null || value == JSONObject.NULL)
+            return JsonNull.INSTANCE;
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject)value;
+            JsonObject element = new JsonObject();
+            Iterator<?> keys = object.keys();
+            while (keys.hasNext()) {
+                String key = (String)keys.next();
+                element.add(key, toGson(object.get(key), attachments));
+            }
+            return element;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray)value;
+            JsonArray element = new JsonArray();
+            for (int i = 0; i < array.length(); i++) {
+                element.add(toGson(array.get(i), attachments));
+            }
+            return element;
+        }
+        if (value instanceof byte[])
+            return Attachments.placeholder(attachments.add((byte[])value));
+        if (value instanceof Boolean)
+            return new JsonPrimitive((Boolean)value);
+        if (value instanceof Number)
+            return new JsonPrimitive((Number)value);
+        return new JsonPrimitive(value.toString());
+    }
+}
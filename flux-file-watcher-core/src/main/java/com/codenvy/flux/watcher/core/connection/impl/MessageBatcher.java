@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.connection.impl;
+
+import com.codenvy.flux.watcher.core.adapter.Attachments;
+import com.codenvy.flux.watcher.core.connection.IListener;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups the outgoing messages of a connection into batch frames: a batch is sent once it holds
+ * {@link #MAX_BATCH_SIZE} messages or when its first message waited {@link #MAX_LATENCY} milliseconds. A batch of one
+ * message is sent as the message itself. With a maximum batch size of one every message is sent right away. Batched
+ * messages are copied when they are queued, callers may go on changing the content they passed. Their binary values
+ * are shared, socket.io sends them as attachments of the frame.
+ */
+public class MessageBatcher {
+    public static final String MAX_BATCH_SIZE = "flux.connection.batch.maxSize";
+    public static final String MAX_LATENCY    = "flux.connection.batch.maxLatency";
+
+    /**
+     * Type of the batch frames, their content holds the batched messages as {@code {"type": ..., "data": ...}} objects.
+     */
+    public static final String BATCH_TYPE = "messageBatch";
+
+    public interface Sink {
+        void send(String type, JSONObject content);
+    }
+
+    private final Sink sink;
+
+    private final int maxBatchSize;
+
+    private final long maxLatency;
+
+    private final ScheduledExecutorService scheduler;
+
+    private JSONArray batch = new JSONArray();
+
+    private String firstType;
+
+    private JSONObject firstContent;
+
+    private ScheduledFuture<?> timer;
+
+    /**
+     * Incremented on every flush, a timer only flushes the batch it was scheduled for.
+     */
+    private long generation;
+
+    public MessageBatcher(Sink sink, int maxBatchSize, long maxLatency) {
+        this.sink = sink;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatency = maxLatency;
+        this.scheduler = maxBatchSize > 1 ? Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("flux-batcher-%d").setDaemon(true).build()) : null;
+    }
+
+    public void send(String type, JSONObject content) {
+        if (scheduler == null) {
+            sink.send(type, content);
+            return;
+        }
+        synchronized (this) {
+            content = (JSONObject)copy(content);
+            if (batch.length() == 0) {
+                firstType = type;
+                firstContent = content;
+                final long scheduledGeneration = generation;
+                timer = scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        flush(scheduledGeneration);
+                    }
+                }, maxLatency, TimeUnit.MILLISECONDS);
+            }
+            JSONObject message = new JSONObject();
+            put(message, "type", type);
+            put(message, "data", content);
+            batch.put(message);
+            if (batch.length() >= maxBatchSize)
+                flush();
+        }
+    }
+
+    private synchronized void flush(long scheduledGeneration) {
+        if (scheduledGeneration == generation)
+            flush();
+    }
+
+    /**
+     * Sends the pending messages, if any.
+     */
+    public synchronized void flush() {
+        if (batch.length() == 0)
+            return;
+        generation++;
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        if (batch.length() == 1) {
+            sink.send(firstType, firstContent);
+        } else {
+            JSONObject frame = new JSONObject();
+            put(frame, "messages", batch);
+            sink.send(BATCH_TYPE, frame);
+        }
+        batch = new JSONArray();
+        firstType = null;
+        firstContent = null;
+    }
+
+    public void close() {
+        flush();
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    /**
+     * Copies the objects and arrays of the given tree, primitives and binary values are never changed and shared.
+     */
+    private static Object copy(Object value) {
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject)value;
+            JSONObject copy = new JSONObject();
+            Iterator<?> keys = object.keys();
+            while (keys.hasNext()) {
+                String key = (String)keys.next();
+                put(copy, key, copy(object.opt(key)));
+            }
+            return copy;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray)value;
+            JSONArray copy = new JSONArray();
+            for (int i = 0; i < array.length(); i++) {
+                copy.put(copy(array.opt(i)));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private static void put(JSONObject object, String key, Object value) {
+        try {
+            object.put(key, value);
+        } catch (JSONException e) {
+            // only thrown for a null key or a non finite number, never copied from a valid message
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Hands the messages of a received batch frame to the given listener, in the order they were batched.
+     */
+    public static void unbatch(JsonElement frame, Attachments attachments, IListener listener) {
+        for (JsonElement element : frame.getAsJsonObject().getAsJsonArray("messages")) {
+            JsonObject message = element.getAsJsonObject();
+            listener.onMessage(message.get("type").getAsString(), message.get("data"), attachments);
+        }
+    }
+}
@@ -1,17 +1,20 @@
 package com.codenvy.flux.watcher.core.connection.impl;
 
 import com.codenvy.flux.watcher.core.Credentials;
+import com.codenvy.flux.watcher.core.adapter.Attachments;
 import com.codenvy.flux.watcher.core.enums.ConnectionStatus;
+import com.codenvy.flux.watcher.core.metrics.Counter;
+import com.codenvy.flux.watcher.core.metrics.Histogram;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import io.socket.client.Ack;
 import io.socket.client.IO;
 import io.socket.client.Manager;
 import io.socket.client.Socket;
 import io.socket.emitter.Emitter;
 import io.socket.parser.Packet;
+import io.socket.parser.Parser;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -28,7 +31,34 @@ public class SocketIOConnection extends AbstractConnection {
 
     private Socket socket;
 
+    private MessageBatcher batcher;
+
+    private Counter sentCount;
+
+    private Histogram sendTime;
+
     public SocketIOConnection(URI uri, Credentials credentials) {
+        this(uri, credentials, 1, 0, new MetricsRegistry());
+    }
+
+    /**
+     * @param metrics
+     *         registry the frames sent and the time spent sending them are recorded in, a batch of messages counts
+     *         as one frame.
+     */
+    public SocketIOConnection(URI uri, Credentials credentials, int maxBatchSize, long maxBatchLatency,
+                              MetricsRegistry metrics) {
+        sentCount = metrics.counter("connection.sent");
+        sendTime = metrics.histogram("connection.sendTime");
+        batcher = new MessageBatcher(new MessageBatcher.Sink() {
+            @Override
+            public void send(String type, JSONObject content) {
+                long start = System.nanoTime();
+                socket.emit(type, content);
+                sendTime.time(start);
+                sentCount.inc();
+            }
+        }, maxBatchSize, maxBatchLatency);
         options = new IO.Options();
         options.transports = new String[]{"websocket"};
         socket = IO.socket(uri, options);
@@ -54,9 +84,21 @@ public class SocketIOConnection extends AbstractConnection {
             @Override
             public void call(Object... objects) {
                 Packet packet = (Packet) objects[0];
-                if(packet.type == 2){
-                    JsonArray array = parser.parse(packet.data.toString()).getAsJsonArray();
-                    listener.onMessage(array.get(0).getAsString(), array.get(1));
+                if(packet.type == Parser.EVENT || packet.type == Parser.BINARY_EVENT){
+                    JsonArray array;
+                    Attachments attachments = new Attachments();
+                    try {
+                        array = JsonConverter.toGson(packet.data, attachments).getAsJsonArray();
+                    } catch (JSONException e) {
+                        e.printStackTrace();
+                        return;
+                    }
+                    String type = array.get(0).getAsString();
+                    if (MessageBatcher.BATCH_TYPE.equals(type)) {
+                        MessageBatcher.unbatch(array.get(1), attachments, listener);
+                    } else {
+                        listener.onMessage(type, array.get(1), attachments);
+                    }
                 }
             }
         });
@@ -69,6 +111,7 @@ public class SocketIOConnection extends AbstractConnection {
 
     @Override
     public void close() {
+        batcher.close();
         socket.close();
     }
 
@@ -79,8 +122,8 @@ public class SocketIOConnection extends AbstractConnection {
             @Override
             public void call(Object... objects) {
                 if(objects.length == 1){
-                    JsonObject message = parser.parse(objects[0].toString()).getAsJsonObject();
-                    if(message.get("connectedToChannel").getAsBoolean()){
+                    JSONObject message = (JSONObject) objects[0];
+                    if(message.optBoolean("connectedToChannel")){
                         listener.onChannelEvent(ConnectionStatus.CONNECTED, channel);
                     }
                 }
@@ -94,8 +137,8 @@ public class SocketIOConnection extends AbstractConnection {
             @Override
             public void call(Object... objects) {
                 if(objects.length == 1){
-                    JsonObject message = parser.parse(objects[0].toString()).getAsJsonObject();
-                    if(message.get("disconnectedFromChannel").getAsBoolean()){
+                    JSONObject message = (JSONObject) objects[0];
+                    if(message.optBoolean("disconnectedFromChannel")){
                         listener.onChannelEvent(ConnectionStatus.DISCONNECTED, channel);
                     }
                 }
@@ -104,12 +147,8 @@ public class SocketIOConnection extends AbstractConnection {
     }
 
     @Override
-    public void sendMessage(String type, JsonElement content) {
-        try {
-            socket.emit(type, new JSONObject(content.toString()));
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
+    public void sendMessage(String type, JSONObject content) {
+        batcher.send(type, content);
     }
 
     private JSONObject getMessage(String channel){
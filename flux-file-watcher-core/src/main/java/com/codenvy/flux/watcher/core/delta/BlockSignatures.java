@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.delta;
+
+/**
+ * Signatures of the full blocks of a resource version: for each block its rolling checksum followed by the first
+ * {@link DeltaCodec#STRONG_HASH_SIZE} bytes of its MD5.
+ */
+public class BlockSignatures {
+    private final int blockSize;
+
+    private final byte[] sums;
+
+    public BlockSignatures(int blockSize, byte[] sums) {
+        this.blockSize = blockSize;
+        this.sums = sums;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public int getBlockCount() {
+        return sums.length / DeltaCodec.SIGNATURE_SIZE;
+    }
+
+    public byte[] getSums() {
+        return sums;
+    }
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.delta;
+
+/**
+ * Instructions rebuilding a resource version from the blocks of another version: {@code ops} is a sequence of copy
+ * operations (a block index and a block count) and literal operations (a length) whose bytes are taken in order from
+ * {@code data}.
+ */
+public class Delta {
+    private final int blockSize;
+
+    private final int length;
+
+    private final byte[] ops;
+
+    private final byte[] data;
+
+    public Delta(int blockSize, int length, byte[] ops, byte[] data) {
+        this.blockSize = blockSize;
+        this.length = length;
+        this.ops = ops;
+        this.data = data;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns the length of the rebuilt content.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    public byte[] getOps() {
+        return ops;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Returns the number of bytes the delta takes on the wire, operations and literal data.
+     */
+    public int size() {
+        return ops.length + data.length;
+    }
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.delta;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Ints;
+
+/**
+ * rsync style delta encoding. The receiver signs the blocks of its version of a resource, the sender looks for those
+ * blocks at every offset of its own version with a rolling checksum confirmed by a truncated MD5, and sends copy
+ * operations for the blocks found and literal bytes for everything else.
+ */
+public final class DeltaCodec {
+    static final int STRONG_HASH_SIZE = 8;
+
+    static final int SIGNATURE_SIZE = 4 + STRONG_HASH_SIZE;
+
+    private static final int MIN_BLOCK_SIZE = 512;
+
+    private static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+    private static final byte COPY = 0;
+
+    private static final byte LITERAL = 1;
+
+    private static final HashFunction STRONG_HASH = Hashing.md5();
+
+    private DeltaCodec() {
+    }
+
+    /**
+     * Returns the block size used for content of the given length, about its square root so the signatures and the
+     * expected delta stay small together.
+     */
+    static int blockSize(int length) {
+        int blockSize = Integer.highestOneBit(Math.max((int)Math.sqrt(length), 1));
+        return Math.min(Math.max(blockSize, MIN_BLOCK_SIZE), MAX_BLOCK_SIZE);
+    }
+
+    public static BlockSignatures signatures(byte[] content) {
+        int blockSize = blockSize(content.length);
+        int blockCount = content.length / blockSize;
+        byte[] sums = new byte[blockCount * SIGNATURE_SIZE];
+        for (int block = 0; block < blockCount; block++) {
+            int offset = block * blockSize;
+            int position = block * SIGNATURE_SIZE;
+            writeInt(sums, position, new RollingChecksum(content, offset, blockSize).getValue());
+            STRONG_HASH.hashBytes(content, offset, blockSize).writeBytesTo(sums, position + 4, STRONG_HASH_SIZE);
+        }
+        return new BlockSignatures(blockSize, sums);
+    }
+
+    /**
+     * Returns the delta rebuilding the given content from the signed version, or {@code null} when it would not be
+     * smaller than the content itself.
+     */
+    public static Delta delta(BlockSignatures signatures, byte[] content) {
+        int blockSize = signatures.getBlockSize();
+        byte[] sums = signatures.getSums();
+        ListMultimap<Integer, Integer> blocksBySum = ArrayListMultimap.create();
+        // cheap first test done at every offset before looking up the checksum
+        boolean[] tags = new boolean[1 << 16];
+        for (int block = 0; block < signatures.getBlockCount(); block++) {
+            int sum = readInt(sums, block * SIGNATURE_SIZE);
+            blocksBySum.put(sum, block);
+            tags[tag(sum)] = true;
+        }
+
+        ByteArrayDataOutput ops = ByteStreams.newDataOutput();
+        ByteArrayDataOutput data = ByteStreams.newDataOutput();
+        int literalStart = 0;
+        int copyBlock = -1;
+        int copyCount = 0;
+        int offset = 0;
+        RollingChecksum checksum = content.length >= blockSize ? new RollingChecksum(content, 0, blockSize) : null;
+        byte[] strongHash = new byte[STRONG_HASH_SIZE];
+        while (checksum != null) {
+            int sum = checksum.getValue();
+            int block = tags[tag(sum)] ? findBlock(blocksBySum, sum, sums, content, offset, blockSize, strongHash) : -1;
+            if (block >= 0) {
+                if (literalStart < offset) {
+                    copyCount = writeCopy(ops, copyBlock, copyCount);
+                    writeLiteral(ops, data, content, literalStart, offset);
+                }
+                if (copyCount > 0 && block == copyBlock + copyCount) {
+                    copyCount++;
+                } else {
+                    writeCopy(ops, copyBlock, copyCount);
+                    copyBlock = block;
+                    copyCount = 1;
+                }
+                offset += blockSize;
+                literalStart = offset;
+                checksum = offset + blockSize <= content.length ? new RollingChecksum(content, offset, blockSize) : null;
+            } else if (offset + blockSize < content.length) {
+                checksum.roll(content[offset], content[offset + blockSize]);
+                offset++;
+            } else {
+                checksum = null;
+            }
+        }
+        if (literalStart < content.length) {
+            writeCopy(ops, copyBlock, copyCount);
+            copyCount = 0;
+            writeLiteral(ops, data, content, literalStart, content.length);
+        }
+        writeCopy(ops, copyBlock, copyCount);
+
+        Delta delta = new Delta(blockSize, content.length, ops.toByteArray(), data.toByteArray());
+        return delta.size() < content.length ? delta : null;
+    }
+
+    /**
+     * Rebuilds content from the version the delta was computed against, returns {@code null} when the delta does not
+     * fit that version.
+     */
+    public static byte[] apply(byte[] base, Delta delta) {
+        byte[] content = new byte[delta.getLength()];
+        ByteArrayDataInput ops = ByteStreams.newDataInput(delta.getOps());
+        byte[] data = delta.getData();
+        int position = 0;
+        int dataPosition = 0;
+        int remaining = delta.getOps().length;
+        while (remaining > 0) {
+            byte op = ops.readByte();
+            if (op == COPY) {
+                int offset = ops.readInt() * delta.getBlockSize();
+                int length = ops.readInt() * delta.getBlockSize();
+                remaining -= 9;
+                if (offset < 0 || length < 0 || offset + length > base.length || position + length > content.length)
+                    return null;
+                System.arraycopy(base, offset, content, position, length);
+                position += length;
+            } else {
+                int length = ops.readInt();
+                remaining -= 5;
+                if (length < 0 || dataPosition + length > data.length || position + length > content.length)
+                    return null;
+                System.arraycopy(data, dataPosition, content, position, length);
+                dataPosition += length;
+                position += length;
+            }
+        }
+        return position == content.length ? content : null;
+    }
+
+    private static int findBlock(ListMultimap<Integer, Integer> blocksBySum, int sum, byte[] sums, byte[] content,
+                                 int offset, int blockSize, byte[] strongHash) {
+        boolean hashed = false;
+        for (int block : blocksBySum.get(sum)) {
+            if (!hashed) {
+                STRONG_HASH.hashBytes(content, offset, blockSize).writeBytesTo(strongHash, 0, STRONG_HASH_SIZE);
+                hashed = true;
+            }
+            int position = block * SIGNATURE_SIZE + 4;
+            int i = 0;
+            while (i < STRONG_HASH_SIZE && strongHash[i] == sums[position + i]) {
+                i++;
+            }
+            if (i == STRONG_HASH_SIZE)
+                return block;
+        }
+        return -1;
+    }
+
+    private static int tag(int sum) {
+        return (sum ^ (sum >>> 16)) & 0xffff;
+    }
+
+    private static int writeCopy(ByteArrayDataOutput ops, int block, int count) {
+        if (count > 0) {
+            ops.writeByte(COPY);
+            ops.writeInt(block);
+            ops.writeInt(count);
+        }
+        return 0;
+    }
+
+    private static void writeLiteral(ByteArrayDataOutput ops, ByteArrayDataOutput data, byte[] content, int from, int to) {
+        ops.writeByte(LITERAL);
+        ops.writeInt(to - from);
+        data.write(content, from, to - from);
+    }
+
+    private static void writeInt(byte[] bytes, int position, int value) {
+        System.arraycopy(Ints.toByteArray(value), 0, bytes, position, 4);
+    }
+
+    private static int readInt(byte[] bytes, int position) {
+        return Ints.fromBytes(bytes[position], bytes[position + 1], bytes[position + 2], bytes[position + 3]);
+    }
+
+    /**
+     * The rsync weak checksum of a window, updated in constant time when the window slides by one byte.
+     */
+    private static class RollingChecksum {
+        private final int length;
+
+        private int a;
+
+        private int b;
+
+        private RollingChecksum(byte[] content, int offset, int length) {
+            this.length = length;
+            for (int i = 0; i < length; i++) {
+                int value = content[offset + i] & 0xff;
+                a += value;
+                b += (length - i) * value;
+            }
+        }
+
+        private void roll(byte out, byte in) {
+            a += (in & 0xff) - (out & 0xff);
+            b += a - length * (out & 0xff);
+        }
+
+        private int getValue() {
+            return (a & 0xffff) | (b << 16);
+        }
+    }
+}
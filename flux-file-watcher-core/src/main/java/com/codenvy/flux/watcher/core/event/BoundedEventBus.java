@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.event;
+
+import com.codenvy.flux.watcher.core.enums.EventType;
+import com.codenvy.flux.watcher.core.metrics.Counter;
+import com.codenvy.flux.watcher.core.metrics.Gauge;
+import com.codenvy.flux.watcher.core.metrics.Histogram;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
+import com.codenvy.flux.watcher.core.model.Resource;
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.EventBus;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link EventBus} dispatching posted events on worker threads, so the posting thread (the watcher or the socket.io
+ * event thread) never runs the disk I/O or the socket sends of the subscribers. Posted events wait in a bounded queue,
+ * the {@link Policy} decides what happens when it is full. A subscriber posting while the queue is full dispatches the
+ * event itself instead of waiting, the workers would otherwise wait for themselves.
+ */
+public class BoundedEventBus extends EventBus {
+    public static final String WORKERS  = "flux.eventbus.workers";
+    public static final String CAPACITY = "flux.eventbus.capacity";
+    public static final String POLICY   = "flux.eventbus.policy";
+
+    public enum Policy {
+        /**
+         * The posting thread waits for room in the queue.
+         */
+        BLOCK,
+        /**
+         * The oldest queued event is dropped.
+         */
+        DROP_OLDEST,
+        /**
+         * A change notification replaces the queued change notification of the same kind for the same resource when
+         * nothing else was queued for that resource since. Requests and responses are never replaced, each of them is
+         * awaited by a peer. When the queue is still full the posting thread waits.
+         */
+        COALESCE
+    }
+
+    /**
+     * Set on the worker threads, which must not wait for room in the queue they empty.
+     */
+    private static final ThreadLocal<Boolean> DISPATCHING = new ThreadLocal<>();
+
+    private final Deque<Pending> queue = new ArrayDeque<>();
+
+    private final Map<Object, Pending> lastPending = Maps.newHashMap();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final int capacity;
+
+    private final Policy policy;
+
+    private final Counter posted;
+
+    private final Counter dispatched;
+
+    private final Counter dropped;
+
+    private final Counter coalesced;
+
+    private final Histogram queueLatency;
+
+    private final Histogram dispatchTime;
+
+    private volatile int maxDepth;
+
+    /**
+     * @param executor runs the given number of dispatching workers, each of them takes one thread for the lifetime of
+     *                 the bus.
+     */
+    public BoundedEventBus(Executor executor, int workers, int capacity, Policy policy) {
+        this(executor, workers, capacity, policy, new MetricsRegistry());
+    }
+
+    /**
+     * @param metrics registry the counters, the queue latency and the dispatch time of the bus are recorded in.
+     */
+    public BoundedEventBus(Executor executor, int workers, int capacity, Policy policy, MetricsRegistry metrics) {
+        this.capacity = capacity;
+        this.policy = policy;
+        posted = metrics.counter("eventbus.posted");
+        dispatched = metrics.counter("eventbus.dispatched");
+        dropped = metrics.counter("eventbus.dropped");
+        coalesced = metrics.counter("eventbus.coalesced");
+        queueLatency = metrics.histogram("eventbus.queueLatency");
+        dispatchTime = metrics.histogram("eventbus.dispatchTime");
+        metrics.gauge("eventbus.queueDepth", new Gauge() {
+            @Override
+            public double getValue() {
+                return getQueueDepth();
+            }
+        });
+        metrics.gauge("eventbus.maxQueueDepth", new Gauge() {
+            @Override
+            public double getValue() {
+                return getMaxQueueDepth();
+            }
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    dispatchLoop();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void post(Object event) {
+        posted.inc();
+        Object key = policy == Policy.COALESCE ? coalesceKey(event) : null;
+        lock.lock();
+        try {
+            if (key != null && isNotification(event)) {
+                Pending pending = lastPending.get(key);
+                if (pending != null && pending.sameKind(event)) {
+                    pending.event = event;
+                    coalesced.inc();
+                    return;
+                }
+            }
+            while (queue.size() >= capacity) {
+                if (policy == Policy.DROP_OLDEST) {
+                    forget(queue.pollFirst());
+                    dropped.inc();
+                } else if (DISPATCHING.get() != null) {
+                    break;
+                } else {
+                    notFull.awaitUninterruptibly();
+                }
+            }
+            if (queue.size() >= capacity) {
+                lock.unlock();
+                try {
+                    dispatch(event);
+                } finally {
+                    lock.lock();
+                }
+                return;
+            }
+            Pending pending = new Pending(key, event);
+            queue.addLast(pending);
+            if (key != null)
+                lastPending.put(key, pending);
+            if (queue.size() > maxDepth)
+                maxDepth = queue.size();
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxQueueDepth() {
+        return maxDepth;
+    }
+
+    public long getPostedCount() {
+        return posted.getCount();
+    }
+
+    public long getDispatchedCount() {
+        return dispatched.getCount();
+    }
+
+    public long getDroppedCount() {
+        return dropped.getCount();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.getCount();
+    }
+
+    /**
+     * Returns the average time events waited in the queue before being dispatched.
+     */
+    public long getAverageLatencyNanos() {
+        return (long)queueLatency.getMean();
+    }
+
+    public long getMaxLatencyNanos() {
+        return queueLatency.getMax();
+    }
+
+    private void dispatchLoop() {
+        DISPATCHING.set(Boolean.TRUE);
+        while (true) {
+            Pending pending;
+            lock.lock();
+            try {
+                while (queue.isEmpty()) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                pending = queue.pollFirst();
+                forget(pending);
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+            queueLatency.time(pending.queuedAt);
+            dispatch(pending.event);
+        }
+    }
+
+    private void dispatch(Object event) {
+        dispatched.inc();
+        long start = System.nanoTime();
+        try {
+            super.post(event);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            dispatchTime.time(start);
+        }
+    }
+
+    private void forget(Pending pending) {
+        if (pending.key != null && lastPending.get(pending.key) == pending)
+            lastPending.remove(pending.key);
+    }
+
+    /**
+     * Returns the resource an event is about, events about anything else are never coalesced.
+     */
+    private static Object coalesceKey(Object event) {
+        Resource resource = null;
+        if (event instanceof ResourceEvent)
+            resource = ((ResourceEvent)event).getResource();
+        if (event instanceof LocalResourceEvent)
+            resource = ((LocalResourceEvent)event).getResource();
+        if (resource == null)
+            return null;
+        return Arrays.asList(event.getClass(), resource.getProjectName(), resource.getPath());
+    }
+
+    /**
+     * Returns whether the event only notifies the current state of a resource, a later one of the same kind makes it
+     * obsolete.
+     */
+    private static boolean isNotification(Object event) {
+        EventType type = ((IEvent)event).getType();
+        return type == EventType.CHANGE || type == EventType.STORE;
+    }
+
+    private static class Pending {
+        private final Object key;
+
+        private final long queuedAt = System.nanoTime();
+
+        private volatile Object event;
+
+        private Pending(Object key, Object event) {
+            this.key = key;
+            this.event = event;
+        }
+
+        private boolean sameKind(Object other) {
+            return ((IEvent)event).getType() == ((IEvent)other).getType();
+        }
+    }
+}
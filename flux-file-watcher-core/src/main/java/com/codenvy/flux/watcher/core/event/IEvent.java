@@ -1,7 +1,9 @@
 package com.codenvy.flux.watcher.core.event;
 
+import com.codenvy.flux.watcher.core.adapter.Attachments;
 import com.codenvy.flux.watcher.core.enums.EventType;
 import com.google.gson.JsonElement;
+import org.json.JSONObject;
 
 public interface IEvent {
 
@@ -9,7 +11,20 @@ public interface IEvent {
 
     EventType getType();
 
-    JsonElement serialize();
+    /**
+     * Serializes the event straight into the message socket.io sends, its binary values are {@code byte[]} values
+     * sent as attachments.
+     */
+    JSONObject serialize();
 
-    void deserialize(JsonElement content);
+    /**
+     * Deserializes the event from a received message and the attachments it references.
+     */
+    void deserialize(JsonElement content, Attachments attachments);
+
+    /**
+     * Returns a new event with the same name and type, incoming messages are deserialized into it so events already
+     * posted are never modified.
+     */
+    IEvent newEvent();
 }
\ No newline at end of file
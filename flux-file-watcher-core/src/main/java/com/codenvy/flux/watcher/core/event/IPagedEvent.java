@@ -0,0 +1,13 @@
+package com.codenvy.flux.watcher.core.event;
+
+import org.json.JSONObject;
+
+import java.util.Iterator;
+
+public interface IPagedEvent extends IEvent {
+
+    /**
+     * Serializes the event as several messages. Pages carry no binary values, they are sent without attachments.
+     */
+    Iterator<JSONObject> serializePages();
+}
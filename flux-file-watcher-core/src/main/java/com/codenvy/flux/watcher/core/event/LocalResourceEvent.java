@@ -1,19 +1,18 @@
 package com.codenvy.flux.watcher.core.event;
 
+import com.codenvy.flux.watcher.core.adapter.Attachments;
+import com.codenvy.flux.watcher.core.adapter.JsonCodec;
 import com.codenvy.flux.watcher.core.adapter.ResourceTypeAdapter;
 import com.codenvy.flux.watcher.core.enums.EventType;
 import com.codenvy.flux.watcher.core.model.Resource;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import org.json.JSONObject;
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 public class LocalResourceEvent implements IEvent {
 
     private EventType type;
 
-    private Gson gson = new GsonBuilder().registerTypeAdapter(Resource.class, new ResourceTypeAdapter()).create();
-
     private Resource resource;
 
     public LocalResourceEvent() {
@@ -40,12 +39,17 @@ public class LocalResourceEvent implements IEvent {
     }
 
     @Override
-    public JsonElement serialize() {
-        return gson.toJsonTree(resource);
+    public JSONObject serialize() {
+        return (JSONObject)JsonCodec.toWire(new ResourceTypeAdapter(new Attachments()), resource);
     }
 
     @Override
-    public void deserialize(JsonElement content) {
+    public void deserialize(JsonElement content, Attachments attachments) {
         throw new NotImplementedException();
     }
+
+    @Override
+    public IEvent newEvent() {
+        return new LocalResourceEvent();
+    }
 }
\ No newline at end of file
@@ -1,24 +1,36 @@
 package com.codenvy.flux.watcher.core.event;
 
-import com.codenvy.flux.watcher.core.adapter.ResourceTypeAdapter;
+import com.codenvy.flux.watcher.core.adapter.Attachments;
+import com.codenvy.flux.watcher.core.adapter.JsonCodec;
+import com.codenvy.flux.watcher.core.adapter.JsonWireWriter;
 import com.codenvy.flux.watcher.core.enums.EventType;
 import com.codenvy.flux.watcher.core.model.Project;
 import com.codenvy.flux.watcher.core.model.Resource;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.common.collect.AbstractIterator;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
+import org.json.JSONObject;
 
-public class ProjectEvent implements IEvent {
+import java.io.IOException;
+import java.util.Iterator;
 
-    private EventType type;
+public class ProjectEvent implements IPagedEvent {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
 
-    private Gson gson = new GsonBuilder().registerTypeAdapter(Resource.class, new ResourceTypeAdapter()).create();
+    private EventType type;
 
     private Project project;
 
     private Resource[] resources;
 
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    private int page;
+
+    private boolean lastPage = true;
+
     public ProjectEvent(EventType type) {
         this.type = type;
     }
@@ -28,6 +40,11 @@ public class ProjectEvent implements IEvent {
         this.project = project;
     }
 
+    public ProjectEvent(EventType type, Project project, int pageSize) {
+        this(type, project);
+        this.pageSize = pageSize;
+    }
+
     public Project getProject() {
         return project;
     }
@@ -36,6 +53,14 @@ public class ProjectEvent implements IEvent {
         return resources;
     }
 
+    public int getPage() {
+        return page;
+    }
+
+    public boolean isLastPage() {
+        return lastPage;
+    }
+
     @Override
     public String getName() {
         return getClass().getName();
@@ -47,16 +72,63 @@ public class ProjectEvent implements IEvent {
     }
 
     @Override
-    public JsonElement serialize() {
-        return gson.toJsonTree(project);
+    public JSONObject serialize() {
+        return (JSONObject)JsonCodec.toWire(project, Project.class);
+    }
+
+    /**
+     * Serializes the project as a sequence of messages of at most {@code pageSize} files each. Every page carries the
+     * project header and its index, the last one is flagged with {@code lastPage}. Pages are streamed one at a time
+     * while iterating.
+     */
+    @Override
+    public Iterator<JSONObject> serializePages() {
+        final Iterator<Resource> iterator = project.getResources().iterator();
+        return new AbstractIterator<JSONObject>() {
+            private int index;
+
+            private boolean done;
+
+            @Override
+            protected JSONObject computeNext() {
+                if (done)
+                    return endOfData();
+                JsonWireWriter out = new JsonWireWriter();
+                try {
+                    out.beginObject();
+                    out.name("project").value(project.getName());
+                    out.name("resource").value(project.getPath());
+                    out.name("files").beginArray();
+                    for (int files = 0; files < pageSize && iterator.hasNext(); files++) {
+                        JsonCodec.write(out, iterator.next(), Resource.class);
+                    }
+                    out.endArray();
+                    done = !iterator.hasNext();
+                    out.name("page").value(index++);
+                    out.name("lastPage").value(done);
+                    out.endObject();
+                } catch (IOException e) {
+                    throw new JsonIOException(e);
+                }
+                return (JSONObject)out.get();
+            }
+        };
     }
 
     @Override
-    public void deserialize(JsonElement content) {
+    public void deserialize(JsonElement content, Attachments attachments) {
         JsonObject message = content.getAsJsonObject();
-        project = gson.fromJson(content, Project.class);
+        project = JsonCodec.fromTree(content, Project.class);
+        resources = new Resource[0];
         if(message.has("deleted")){
-            resources = gson.fromJson(message.get("deleted"), Resource[].class);
+            resources = JsonCodec.fromTree(message.get("deleted"), Resource[].class);
         }
+        page = message.has("page") ? message.get("page").getAsInt() : 0;
+        lastPage = !message.has("lastPage") || message.get("lastPage").getAsBoolean();
+    }
+
+    @Override
+    public IEvent newEvent() {
+        return new ProjectEvent(type);
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,17 @@
 package com.codenvy.flux.watcher.core.event;
 
+import com.codenvy.flux.watcher.core.adapter.Attachments;
+import com.codenvy.flux.watcher.core.adapter.JsonCodec;
 import com.codenvy.flux.watcher.core.adapter.ResourceTypeAdapter;
 import com.codenvy.flux.watcher.core.enums.EventType;
 import com.codenvy.flux.watcher.core.model.Resource;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import org.json.JSONObject;
 
 public class ResourceEvent implements IEvent {
 
     private EventType type;
 
-    private Gson gson = new GsonBuilder().registerTypeAdapter(Resource.class, new ResourceTypeAdapter()).create();
-
     private Resource resource;
 
     public ResourceEvent(EventType type) {
@@ -39,12 +38,17 @@ public class ResourceEvent implements IEvent {
     }
 
     @Override
-    public JsonElement serialize() {
-        return gson.toJsonTree(resource);
+    public JSONObject serialize() {
+        return (JSONObject)JsonCodec.toWire(new ResourceTypeAdapter(new Attachments()), resource);
+    }
+
+    @Override
+    public void deserialize(JsonElement content, Attachments attachments) {
+        resource = new ResourceTypeAdapter(attachments).fromJsonTree(content);
     }
 
     @Override
-    public void deserialize(JsonElement content) {
-        resource = gson.fromJson(content, Resource.class);
+    public IEvent newEvent() {
+        return new ResourceEvent(type);
     }
 }
\ No newline at end of file
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.handler;
+
+import com.codenvy.flux.watcher.core.enums.ResourceType;
+import com.codenvy.flux.watcher.core.model.Resource;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs handler work in parallel while keeping it ordered per key: every key is hashed to one of {@link #STRIPES} single
+ * threaded stripes, so tasks submitted with the same key run one after the other in submission order. Each stripe
+ * queues at most {@link #QUEUE_SIZE} tasks, a submitter finding it full blocks until there is room, so a slow stripe
+ * holds back the event bus instead of queueing without limit.
+ * <p/>
+ * Resources are keyed by project and path. A task of a resource waits for the pending tasks of its parent folders, and
+ * a task of a folder for the pending tasks below it, so a child is never written before its parent is created or
+ * after it is deleted. Tasks only wait for tasks submitted before them, which are queued ahead of them.
+ */
+@Singleton
+public class KeyOrderedExecutor {
+    public static final String STRIPES    = "flux.handler.stripes";
+    public static final String QUEUE_SIZE = "flux.handler.queueSize";
+
+    /**
+     * Last task submitted for each resource key, until it completes.
+     */
+    private final ConcurrentMap<String, OrderedTask> pendingTasks = Maps.newConcurrentMap();
+
+    private BlockingQueue<Runnable>[] queues;
+
+    private Thread[] threads;
+
+    private Thread shutdownHook;
+
+    private volatile boolean stopped;
+
+    @Inject
+    @Named(STRIPES)
+    private int stripeCount;
+
+    @Inject
+    @Named(QUEUE_SIZE)
+    private int queueSize;
+
+    @Inject
+    @SuppressWarnings("unchecked")
+    public void init() {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("flux-handler-%d").setDaemon(true).build();
+        queues = new BlockingQueue[Math.max(stripeCount, 1)];
+        threads = new Thread[queues.length];
+        for (int i = 0; i < queues.length; i++) {
+            final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+            queues[i] = queue;
+            threads[i] = threadFactory.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    drain(queue);
+                }
+            });
+            threads[i].start();
+        }
+        shutdownHook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                stop();
+            }
+        }, "flux-handler-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Stops the stripe threads, the tasks still queued and those submitted afterwards are dropped.
+     */
+    public void shutdown() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // the JVM is shutting down, the hook stops the threads
+        }
+        stop();
+    }
+
+    private void stop() {
+        stopped = true;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Runs the given task after everything already submitted with the given key, blocks while the stripe of the key is
+     * full.
+     */
+    public void execute(Object key, Runnable task) {
+        if (stopped)
+            return;
+        try {
+            queues[stripe(key)].put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs the given task after everything already submitted for the resource, its parent folders and, unless it is a
+     * file, the resources below it.
+     */
+    public void execute(Resource resource, Runnable task) {
+        String project = resource.getProjectName() + '\u0000';
+        String key = project + normalize(resource.getPath());
+        if (stopped)
+            return;
+        // registering and queueing in one step keeps every stripe in registration order
+        synchronized (this) {
+            List<OrderedTask> dependencies = Lists.newArrayList();
+            for (int end = key.indexOf('/', project.length()); end >= 0; end = key.indexOf('/', end + 1)) {
+                addPending(dependencies, key.substring(0, end));
+            }
+            if (resource.getType() != ResourceType.FILE) {
+                String prefix = key.length() > project.length() ? key + '/' : key;
+                for (Map.Entry<String, OrderedTask> entry : pendingTasks.entrySet()) {
+                    if (entry.getKey().startsWith(prefix))
+                        dependencies.add(entry.getValue());
+                }
+            }
+            OrderedTask orderedTask = new OrderedTask(key, task, dependencies);
+            pendingTasks.put(key, orderedTask);
+            try {
+                queues[stripe(key)].put(orderedTask);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                e.printStackTrace();
+                orderedTask.complete();
+            }
+        }
+    }
+
+    private int stripe(Object key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % queues.length;
+    }
+
+    private void addPending(List<OrderedTask> dependencies, String key) {
+        OrderedTask pendingTask = pendingTasks.get(key);
+        if (pendingTask != null)
+            dependencies.add(pendingTask);
+    }
+
+    /**
+     * Returns the path with forward slashes, without leading or trailing ones.
+     */
+    private static String normalize(String path) {
+        String normalized = path.replace('\\', '/');
+        int start = 0;
+        int end = normalized.length();
+        while (start < end && normalized.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && normalized.charAt(end - 1) == '/') {
+            end--;
+        }
+        return normalized.substring(start, end);
+    }
+
+    private void drain(BlockingQueue<Runnable> queue) {
+        while (!stopped) {
+            Runnable task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (stopped)
+                return;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private class OrderedTask implements Runnable {
+        private final String key;
+
+        private final Runnable task;
+
+        private final List<OrderedTask> dependencies;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private OrderedTask(String key, Runnable task, List<OrderedTask> dependencies) {
+            this.key = key;
+            this.task = task;
+            this.dependencies = dependencies;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (OrderedTask dependency : dependencies) {
+                    dependency.done.await();
+                }
+                task.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                complete();
+            }
+        }
+
+        private void complete() {
+            pendingTasks.remove(key, this);
+            done.countDown();
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.codenvy.flux.watcher.core.handler;
 
+import com.codenvy.flux.watcher.core.compression.CompressionService;
 import com.codenvy.flux.watcher.core.enums.EventType;
 import com.codenvy.flux.watcher.core.event.ProjectEvent;
 import com.codenvy.flux.watcher.core.event.ResourceEvent;
+import com.codenvy.flux.watcher.core.metrics.Histogram;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
 import com.codenvy.flux.watcher.core.model.Project;
 import com.codenvy.flux.watcher.core.model.Resource;
 import com.codenvy.flux.watcher.core.service.ConnectionService;
@@ -12,11 +15,14 @@ import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 @Singleton
 public class ProjectHandler {
 
+    public static final String PAGE_SIZE = "flux.project.pageSize";
+
     @Inject
     public ProjectHandler(EventBus eventBus) {
         eventBus.register(this);
@@ -31,31 +37,74 @@ public class ProjectHandler {
     @Inject
     private ConnectionService connectionService;
 
+    @Inject
+    private KeyOrderedExecutor executor;
+
+    @Inject
+    private CompressionService compressionService;
+
+    @Inject
+    private MetricsRegistry metrics;
+
+    @Inject
+    @Named(PAGE_SIZE)
+    private int pageSize;
+
+    private Histogram eventTime;
+
+    @Inject
+    public void init() {
+        eventTime = metrics.histogram("handler.project.eventTime");
+    }
+
     @Subscribe
     public void onEvent(ProjectEvent event){
+        long start = System.nanoTime();
+        try {
+            handle(event);
+        } finally {
+            eventTime.time(start);
+        }
+    }
+
+    private void handle(ProjectEvent event){
         Project project = event.getProject();
         Project localProject = projectService.find(project.getName());
         if(localProject == null)
             return;
         switch (event.getType()) {
             case REQUEST:
-                connectionService.send(new ProjectEvent(EventType.RESPONSE, localProject));
+                Project manifest = new Project().setName(localProject.getName())
+                                                .setPath(localProject.getPath())
+                                                .setResources(resourceService.findAll(localProject));
+                connectionService.send(new ProjectEvent(EventType.RESPONSE, manifest, pageSize));
                 break;
             case RESPONSE:
-                for (Resource resource : project.getResources()) {
+                for (final Resource resource : project.getResources()) {
                     resource.setProjectName(project.getName());
                     switch (resource.getType()) {
                         case FILE:
-                            connectionService.send(new ResourceEvent(EventType.REQUEST, resource));
+                            Resource request = compressionService.accept(resource).setAcceptBinary(true);
+                            connectionService.send(new ResourceEvent(EventType.REQUEST, request));
                             break;
                         case FOLDER:
-                            resourceService.save(resource);
+                            executor.execute(resource, new Runnable() {
+                                @Override
+                                public void run() {
+                                    resourceService.save(resource);
+                                }
+                            });
                             break;
                     }
                 }
-                for (Resource resource : event.getResources()) {
+                for (final Resource resource : event.getResources()) {
                     resource.setProjectName(project.getName());
-                    resourceService.delete(resource);
+                    executor.execute(resource, new Runnable() {
+                        @Override
+                        public void run() {
+                            resourceService.delete(resource);
+                        }
+                    });
                 }
                 break;
         }
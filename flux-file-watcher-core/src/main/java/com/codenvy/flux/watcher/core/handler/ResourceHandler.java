@@ -1,20 +1,39 @@
 package com.codenvy.flux.watcher.core.handler;
 
+import com.codenvy.flux.watcher.core.compression.CompressionService;
+import com.codenvy.flux.watcher.core.delta.BlockSignatures;
+import com.codenvy.flux.watcher.core.delta.Delta;
+import com.codenvy.flux.watcher.core.delta.DeltaCodec;
 import com.codenvy.flux.watcher.core.enums.EventType;
 import com.codenvy.flux.watcher.core.enums.ResourceType;
 import com.codenvy.flux.watcher.core.event.LocalResourceEvent;
 import com.codenvy.flux.watcher.core.event.ResourceEvent;
+import com.codenvy.flux.watcher.core.metrics.Histogram;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
 import com.codenvy.flux.watcher.core.model.Resource;
 import com.codenvy.flux.watcher.core.service.ConnectionService;
 import com.codenvy.flux.watcher.core.service.ResourceService;
+import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 @Singleton
 public class ResourceHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(ResourceHandler.class);
+
+    public static final String DELTA_MIN_SIZE = "flux.resource.delta.minSize";
+
+    /**
+     * Error of the response to a request for a file whose content is too large to be sent.
+     */
+    public static final String OVERSIZE_ERROR = "oversize";
 
     @Inject
     public ResourceHandler(EventBus eventBus) {
@@ -27,16 +46,100 @@ public class ResourceHandler {
     @Inject
     private ConnectionService connectionService;
 
+    @Inject
+    private KeyOrderedExecutor executor;
+
+    @Inject
+    private CompressionService compressionService;
+
+    @Inject
+    private MetricsRegistry metrics;
+
+    @Inject
+    @Named(DELTA_MIN_SIZE)
+    private int deltaMinSize;
+
+    private Histogram remoteEventTime;
+
+    private Histogram localEventTime;
+
+    @Inject
+    public void init() {
+        remoteEventTime = metrics.histogram("handler.resource.remoteEventTime");
+        localEventTime = metrics.histogram("handler.resource.localEventTime");
+    }
+
     @Subscribe
-    public void onEvent(ResourceEvent resourceEvent){
+    @AllowConcurrentEvents
+    public void onEvent(final ResourceEvent resourceEvent){
+        executor.execute(resourceEvent.getResource(), new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                try {
+                    handle(resourceEvent);
+                } finally {
+                    remoteEventTime.time(start);
+                }
+            }
+        });
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onLocalEvent(final LocalResourceEvent event){
+        executor.execute(event.getResource(), new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                try {
+                    handleLocal(event);
+                } finally {
+                    localEventTime.time(start);
+                }
+            }
+        });
+    }
+
+    private void handle(ResourceEvent resourceEvent){
         Resource resource = resourceEvent.getResource();
-        Resource localResource = resourceService.find(resource);
         switch (resourceEvent.getType()) {
             case REQUEST:
-                if(localResource != null)
-                    connectionService.send(new ResourceEvent(EventType.RESPONSE, localResource));
+                Resource localResource = resourceService.find(resource);
+                if(localResource == null)
+                    break;
+                if(localResource.getType() == ResourceType.FILE && localResource.getContent() == null){
+                    // files above the inline size cap come back without content, the peer is told why
+                    LOG.warn("Refused to send {}/{}, its content exceeds the inline size limit",
+                             resource.getProjectName(), resource.getPath());
+                    Resource refusal = copyOf(localResource).setError(OVERSIZE_ERROR);
+                    connectionService.send(new ResourceEvent(EventType.RESPONSE, refusal));
+                    break;
+                }
+                if(resource.getSignatures() != null && localResource.getContent() != null)
+                    encodeDelta(localResource, resource.getSignatures());
+                compressionService.encode(localResource, resource.getAcceptEncoding());
+                // content goes as an attachment only to peers asking for it, others read it as text
+                localResource.setAttachContent(resource.isAcceptBinary());
+                connectionService.send(new ResourceEvent(EventType.RESPONSE, localResource));
                 break;
             case RESPONSE:
+                if(resource.getError() != null){
+                    LOG.warn("No content received for {}/{}: {}", resource.getProjectName(), resource.getPath(),
+                             resource.getError());
+                    break;
+                }
+                if(!compressionService.decode(resource)){
+                    // sent without accepted encodings, the content is requested uncompressed
+                    Resource request = copyOf(resource).setAcceptBinary(true);
+                    connectionService.send(new ResourceEvent(EventType.REQUEST, request));
+                    break;
+                }
+                if(resource.getDelta() != null && !applyDelta(resource)){
+                    // the local version changed since it was signed, ask for the whole content
+                    connectionService.send(new ResourceEvent(EventType.REQUEST, request(copyOf(resource))));
+                    break;
+                }
                 boolean isFile = resource.getType() == ResourceType.FILE;
                 boolean isStore = resourceService.save(resource);
                 if(isFile && isStore){
@@ -46,7 +149,7 @@ public class ResourceHandler {
             case CREATE:
                 switch (resource.getType()) {
                     case FILE:
-                        connectionService.send(new ResourceEvent(EventType.REQUEST, resource));
+                        connectionService.send(new ResourceEvent(EventType.REQUEST, request(resource)));
                         break;
                     case FOLDER:
                         resourceService.save(resource);
@@ -55,7 +158,8 @@ public class ResourceHandler {
                 }
                 break;
             case CHANGE:
-                connectionService.send(new ResourceEvent(EventType.REQUEST, resource));
+                resource.setSignatures(localSignatures(resource));
+                connectionService.send(new ResourceEvent(EventType.REQUEST, request(resource)));
                 break;
             case DELETE:
                 resourceService.delete(resource);
@@ -63,8 +167,7 @@ public class ResourceHandler {
         }
     }
 
-    @Subscribe
-    public void onLocalEvent(LocalResourceEvent event){
+    private void handleLocal(LocalResourceEvent event){
         Resource resource = event.getResource();
         switch (event.getType()) {
             case CREATE:
@@ -80,4 +183,49 @@ public class ResourceHandler {
                 break;
         }
     }
+
+    /**
+     * Prepares a request for the content of the given resource, accepting compressed content and binary attachments.
+     */
+    private Resource request(Resource resource){
+        return compressionService.accept(resource).setAcceptBinary(true);
+    }
+
+    /**
+     * Returns the block signatures of the local version of the given file, or {@code null} when it is missing or small
+     * enough to be transferred whole.
+     */
+    private BlockSignatures localSignatures(Resource resource){
+        if(deltaMinSize < 0)
+            return null;
+        Resource localResource = resourceService.find(resource);
+        if(localResource == null || localResource.getContent() == null || localResource.getContent().length < deltaMinSize)
+            return null;
+        return DeltaCodec.signatures(localResource.getContent());
+    }
+
+    private void encodeDelta(Resource localResource, BlockSignatures signatures){
+        Delta delta = DeltaCodec.delta(signatures, localResource.getContent());
+        if(delta != null)
+            localResource.setDelta(delta).setContent(null);
+    }
+
+    private boolean applyDelta(Resource resource){
+        Resource localResource = resourceService.find(resource);
+        if(localResource == null || localResource.getContent() == null)
+            return false;
+        byte[] content = DeltaCodec.apply(localResource.getContent(), resource.getDelta());
+        if(content == null)
+            return false;
+        if(resource.getHash() != null && !resource.getHash().equals(Hashing.sha1().hashBytes(content).toString()))
+            return false;
+        resource.setContent(content).setDelta(null);
+        return true;
+    }
+
+    private Resource copyOf(Resource resource){
+        return new Resource(resource.getPath(), resource.getProjectName()).setType(resource.getType())
+                                                                          .setTimestamp(resource.getTimestamp())
+                                                                          .setHash(resource.getHash());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.metrics;
+
+/**
+ * A value read from the component owning it whenever the metric is read, for state that is already tracked such as
+ * a queue depth.
+ */
+public interface Gauge {
+    double getValue();
+}
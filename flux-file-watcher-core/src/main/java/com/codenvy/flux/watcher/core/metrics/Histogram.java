@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non negative values, durations in nanoseconds for the timers of the pipeline. Values are counted in
+ * log-linear buckets, {@link #SUB_BUCKETS} per power of two, so recording is a few atomic increments on preallocated
+ * state and percentiles are read within an eighth of the recorded values.
+ */
+public class Histogram implements HistogramMBean {
+    private static final int SUB_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS + 1) << SUB_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    public void update(long value) {
+        if (value < 0)
+            value = 0;
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Records the time elapsed since the given {@link System#nanoTime()}.
+     */
+    public void time(long startNanos) {
+        update(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMean() {
+        long count = this.count.sum();
+        return count == 0 ? 0 : (double)sum.sum() / count;
+    }
+
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+
+    @Override
+    public long get50thPercentile() {
+        return getPercentile(0.5);
+    }
+
+    @Override
+    public long get90thPercentile() {
+        return getPercentile(0.9);
+    }
+
+    @Override
+    public long get99thPercentile() {
+        return getPercentile(0.99);
+    }
+
+    @Override
+    public long get999thPercentile() {
+        return getPercentile(0.999);
+    }
+
+    /**
+     * Returns the value below which the given fraction of the recorded values fall.
+     */
+    public long getPercentile(double fraction) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0)
+            return 0;
+        long rank = (long)Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0)
+                return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int)value;
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int)(value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BITS + 1) << SUB_BITS) | subBucket;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+        long lowerBound = (1L << exponent) + ((long)(bucket & (SUB_BUCKETS - 1)) << (exponent - SUB_BITS));
+        return lowerBound + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
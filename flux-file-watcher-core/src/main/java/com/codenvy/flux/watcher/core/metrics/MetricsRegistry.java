@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.metrics;
+
+import com.google.common.collect.Maps;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Named counters, histograms and gauges of the sync pipeline, exported as MBeans under {@link #JMX_DOMAIN} with the
+ * metric kind as {@code type} and its name as {@code name}. Components look their metrics up once when they are
+ * initialized and update them directly afterwards, updates never allocate. With an empty domain, or when the registry
+ * is not injected, nothing is exported.
+ */
+@Singleton
+public class MetricsRegistry {
+    public static final String JMX_DOMAIN = "flux.metrics.jmxDomain";
+
+    private final ConcurrentMap<String, Object> metrics = Maps.newConcurrentMap();
+
+    @Inject
+    @Named(JMX_DOMAIN)
+    private String jmxDomain;
+
+    public Counter counter(String name) {
+        return register(name, new Counter(), CounterMBean.class);
+    }
+
+    public Histogram histogram(String name) {
+        return register(name, new Histogram(), HistogramMBean.class);
+    }
+
+    /**
+     * Registers a gauge, replacing the one previously registered with the same name.
+     */
+    public void gauge(String name, Gauge gauge) {
+        metrics.put(name, gauge);
+        export(name, "Gauge", gauge, Gauge.class);
+    }
+
+    public Map<String, Object> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T register(String name, T metric, Class<? super T> mbeanInterface) {
+        Object previous = metrics.putIfAbsent(name, metric);
+        if (previous != null) {
+            if (!metric.getClass().isInstance(previous))
+                throw new IllegalArgumentException("Metric " + name + " is already registered as a " + previous.getClass().getSimpleName());
+            return (T)previous;
+        }
+        export(name, metric.getClass().getSimpleName(), metric, mbeanInterface);
+        return metric;
+    }
+
+    private <T> void export(String name, String type, T metric, Class<? super T> mbeanInterface) {
+        if (jmxDomain == null || jmxDomain.isEmpty())
+            return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(jmxDomain + ":type=" + type + ",name=" + name);
+            // replaces the metric of another registry of the same JVM, the last one created is the one watched
+            if (server.isRegistered(objectName))
+                server.unregisterMBean(objectName);
+            server.registerMBean(new StandardMBean(metric, (Class<T>)mbeanInterface), objectName);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+}
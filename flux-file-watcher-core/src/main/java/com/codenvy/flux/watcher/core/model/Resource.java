@@ -1,5 +1,7 @@
 package com.codenvy.flux.watcher.core.model;
 
+import com.codenvy.flux.watcher.core.delta.BlockSignatures;
+import com.codenvy.flux.watcher.core.delta.Delta;
 import com.codenvy.flux.watcher.core.enums.ResourceType;
 import com.google.gson.annotations.SerializedName;
 
@@ -21,6 +23,40 @@ public class Resource implements Serializable {
 
     private byte[] content;
 
+    /**
+     * Encoding of the content, {@code null} when it is not compressed.
+     */
+    private String encoding;
+
+    /**
+     * Encodings accepted for the content of the response, sent with a request.
+     */
+    private String[] acceptEncoding;
+
+    /**
+     * Whether the content of the response may be sent as a binary attachment, sent with a request.
+     */
+    private boolean acceptBinary;
+
+    /**
+     * Whether the content is sent as a binary attachment, set on responses to requests accepting it. Otherwise it is
+     * sent as text, which is what Flux peers without attachment support read.
+     */
+    private transient boolean attachContent;
+
+    /**
+     * Block signatures of the local version, sent with a request so the response can be a delta. Written apart by
+     * {@link com.codenvy.flux.watcher.core.adapter.ResourceTypeAdapter}, like the delta.
+     */
+    private transient BlockSignatures signatures;
+
+    private transient Delta delta;
+
+    /**
+     * Why a response carries no content, e.g. because the file is too large to be sent.
+     */
+    private String error;
+
     public Resource() {
     }
 
@@ -82,4 +118,67 @@ public class Resource implements Serializable {
         this.content = content;
         return this;
     }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public Resource setEncoding(String encoding) {
+        this.encoding = encoding;
+        return this;
+    }
+
+    public String[] getAcceptEncoding() {
+        return acceptEncoding;
+    }
+
+    public Resource setAcceptEncoding(String[] acceptEncoding) {
+        this.acceptEncoding = acceptEncoding;
+        return this;
+    }
+
+    public boolean isAcceptBinary() {
+        return acceptBinary;
+    }
+
+    public Resource setAcceptBinary(boolean acceptBinary) {
+        this.acceptBinary = acceptBinary;
+        return this;
+    }
+
+    public boolean isAttachContent() {
+        return attachContent;
+    }
+
+    public Resource setAttachContent(boolean attachContent) {
+        this.attachContent = attachContent;
+        return this;
+    }
+
+    public BlockSignatures getSignatures() {
+        return signatures;
+    }
+
+    public Resource setSignatures(BlockSignatures signatures) {
+        this.signatures = signatures;
+        return this;
+    }
+
+    public Delta getDelta() {
+        return delta;
+    }
+
+    public Resource setDelta(Delta delta) {
+        this.delta = delta;
+        return this;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Resource setError(String error) {
+        this.error = error;
+        return this;
+    }
 }
@@ -10,7 +10,7 @@ public interface ProjectRepository {
 
     Project findByName(String name);
 
-    Project findByPath(String path);
+    Project findContaining(String path);
 
     void save(Project project);
 
@@ -8,13 +8,19 @@ import com.google.common.collect.Sets;
 import javax.inject.Singleton;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Projects indexed by name and by path. Paths are stored in a trie of path segments, so the project owning any
+ * absolute path is found in a number of steps bounded by the path depth. Lookups are lock free, updates are
+ * serialized.
+ */
 @Singleton
 public class ProjectRepositoryImpl implements ProjectRepository {
 
-    private Map<String, Project> nameProjectMap = Maps.newHashMap();
+    private Map<String, Project> nameProjectMap = Maps.newConcurrentMap();
 
-    private Map<String, Project> pathProjectMap = Maps.newHashMap();
+    private final Node root = new Node();
 
     @Override
     public Set<Project> findAll() {
@@ -26,20 +32,99 @@ public class ProjectRepositoryImpl implements ProjectRepository {
         return nameProjectMap.get(name);
     }
 
+    /**
+     * Returns the project with the longest path that is a prefix of the given path, nested projects win over the
+     * projects they are nested in.
+     */
     @Override
-    public Project findByPath(String path) {
-        return pathProjectMap.get(path);
+    public Project findContaining(String path) {
+        Node node = root;
+        Project project = node.project;
+        int start = 0;
+        while ((start = nextSegment(path, start)) < path.length()) {
+            int end = segmentEnd(path, start);
+            node = node.children.get(path.substring(start, end));
+            if (node == null)
+                break;
+            if (node.project != null)
+                project = node.project;
+            start = end;
+        }
+        return project;
     }
 
     @Override
-    public void save(Project project) {
-        nameProjectMap.put(project.getName(), project);
-        pathProjectMap.put(project.getPath(), project);
+    public synchronized void save(Project project) {
+        Project previous = nameProjectMap.put(project.getName(), project);
+        if (previous != null && !previous.getPath().equals(project.getPath()))
+            removePath(previous);
+        String path = project.getPath();
+        Node node = root;
+        int start = 0;
+        while ((start = nextSegment(path, start)) < path.length()) {
+            int end = segmentEnd(path, start);
+            String segment = path.substring(start, end);
+            Node child = node.children.get(segment);
+            if (child == null) {
+                child = new Node();
+                node.children.put(segment, child);
+            }
+            node = child;
+            start = end;
+        }
+        node.project = project;
     }
 
     @Override
-    public void delete(Project project) {
+    public synchronized void delete(Project project) {
         nameProjectMap.remove(project.getName());
-        pathProjectMap.remove(project.getPath());
+        removePath(project);
     }
-}
\ No newline at end of file
+
+    private void removePath(Project project) {
+        removePath(root, project, project.getPath(), 0);
+    }
+
+    /**
+     * Clears the project from the node of the path and prunes the nodes left empty, returns whether the given node is
+     * now empty.
+     */
+    private boolean removePath(Node node, Project project, String path, int start) {
+        start = nextSegment(path, start);
+        if (start >= path.length()) {
+            if (node.project == project)
+                node.project = null;
+        } else {
+            int end = segmentEnd(path, start);
+            String segment = path.substring(start, end);
+            Node child = node.children.get(segment);
+            if (child != null && removePath(child, project, path, end))
+                node.children.remove(segment);
+        }
+        return node.project == null && node.children.isEmpty();
+    }
+
+    private static int nextSegment(String path, int index) {
+        while (index < path.length() && isSeparator(path.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int segmentEnd(String path, int index) {
+        while (index < path.length() && !isSeparator(path.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == '\\';
+    }
+
+    private static class Node {
+        private final ConcurrentMap<String, Node> children = Maps.newConcurrentMap();
+
+        private volatile Project project;
+    }
+}
@@ -3,7 +3,7 @@ package com.codenvy.flux.watcher.core.service;
 import com.codenvy.flux.watcher.core.Credentials;
 import com.codenvy.flux.watcher.core.event.IEvent;
 import com.codenvy.flux.watcher.core.model.Project;
-import com.google.gson.JsonElement;
+import org.json.JSONObject;
 
 import java.net.URI;
 
@@ -21,7 +21,7 @@ public interface ConnectionService {
 
     void disconnectProject(Project project);
 
-    void sendMessage(String type, JsonElement content);
+    void sendMessage(String type, JSONObject content);
 
     void send(IEvent event);
 
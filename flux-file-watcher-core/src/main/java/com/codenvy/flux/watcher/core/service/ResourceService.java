@@ -11,6 +11,8 @@ public interface ResourceService {
 
     Resource find(Resource resource);
 
+    Resource find(Resource resource, boolean withContent);
+
     boolean save(Resource resource);
 
     boolean delete(Resource resource);
@@ -1,11 +1,17 @@
 package com.codenvy.flux.watcher.core.service.impl;
 
 import com.codenvy.flux.watcher.core.Credentials;
+import com.codenvy.flux.watcher.core.adapter.Attachments;
 import com.codenvy.flux.watcher.core.connection.IConnection;
 import com.codenvy.flux.watcher.core.connection.IListener;
+import com.codenvy.flux.watcher.core.connection.impl.MessageBatcher;
 import com.codenvy.flux.watcher.core.connection.impl.SocketIOConnection;
 import com.codenvy.flux.watcher.core.enums.ConnectionStatus;
 import com.codenvy.flux.watcher.core.event.IEvent;
+import com.codenvy.flux.watcher.core.event.IPagedEvent;
+import com.codenvy.flux.watcher.core.metrics.Counter;
+import com.codenvy.flux.watcher.core.metrics.Histogram;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
 import com.codenvy.flux.watcher.core.model.Project;
 import com.codenvy.flux.watcher.core.service.ConnectionService;
 import com.google.common.base.Objects;
@@ -13,10 +19,14 @@ import com.google.common.collect.Maps;
 import com.google.common.eventbus.EventBus;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 import java.net.URI;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
 
@@ -34,17 +44,55 @@ public class ConnectionServiceImpl implements ConnectionService {
     @Inject
     private EventBus eventBus;
 
+    @Inject
+    private MetricsRegistry metrics;
+
+    @Inject
+    @Named(MessageBatcher.MAX_BATCH_SIZE)
+    private int maxBatchSize;
+
+    @Inject
+    @Named(MessageBatcher.MAX_LATENCY)
+    private long maxBatchLatency;
+
+    private Counter queuedCount;
+
+    private Counter receivedCount;
+
+    private Counter reconnectCount;
+
+    private Counter disconnectCount;
+
+    private Histogram receiveTime;
+
+    @Inject
+    public void init() {
+        queuedCount = metrics.counter("connection.queued");
+        receivedCount = metrics.counter("connection.received");
+        reconnectCount = metrics.counter("connection.reconnects");
+        disconnectCount = metrics.counter("connection.disconnects");
+        receiveTime = metrics.histogram("connection.receiveTime");
+    }
+
     @Override
     public void addRemote(URI uri, Credentials credentials) {
         IConnection connection = connectionMap.get(uri);
         if(connection == null){
-            connection = new SocketIOConnection(uri, credentials);
+            connection = new SocketIOConnection(uri, credentials, maxBatchSize, maxBatchLatency, metrics);
             connectionMap.put(uri, connection);
         }
         connection.setListener(new IListener() {
+            private boolean connectedBefore;
+
             @Override
             public void onConnectionEvent(ConnectionStatus status) {
-
+                if (status == ConnectionStatus.CONNECTED) {
+                    if (connectedBefore)
+                        reconnectCount.inc();
+                    connectedBefore = true;
+                } else if (status == ConnectionStatus.DISCONNECTED) {
+                    disconnectCount.inc();
+                }
             }
 
             @Override
@@ -53,7 +101,9 @@ public class ConnectionServiceImpl implements ConnectionService {
             }
 
             @Override
-            public void onMessage(String type, JsonElement content) {
+            public void onMessage(String type, JsonElement content, Attachments attachments) {
+                long start = System.nanoTime();
+                receivedCount.inc();
                 JsonObject message = content.getAsJsonObject();
                 if(message.has("requestSenderID")){
                     senderID = message.get("requestSenderID").getAsString();
@@ -61,11 +111,13 @@ public class ConnectionServiceImpl implements ConnectionService {
                 if(message.has("responseSenderID")){
                     senderID = message.get("responseSenderID").getAsString();
                 }
-                IEvent event = eventMap.get(type);
-                if(event != null){
-                    event.deserialize(message);
+                IEvent registeredEvent = eventMap.get(type);
+                if(registeredEvent != null){
+                    IEvent event = registeredEvent.newEvent();
+                    event.deserialize(message, attachments);
                     eventBus.post(event);
                 }
+                receiveTime.time(start);
             }
         });
         connection.open();
@@ -98,29 +150,42 @@ public class ConnectionServiceImpl implements ConnectionService {
 
     @Override
     public void connectProject(Project project) {
-        JsonObject message = new JsonObject();
-        message.addProperty("project", project.getName());
-        sendMessage("projectConnected", message);
-        message.addProperty("includeDeleted", true);
-        sendMessage("getProjectRequest", message);
+        try {
+            JSONObject message = new JSONObject();
+            message.put("project", project.getName());
+            sendMessage("projectConnected", message);
+            message.put("includeDeleted", true);
+            sendMessage("getProjectRequest", message);
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
     }
 
     @Override
     public void disconnectProject(Project project) {
-        JsonObject message = new JsonObject();
-        message.addProperty("project", project.getName());
-        sendMessage("projectDisconnected", message);
+        try {
+            JSONObject message = new JSONObject();
+            message.put("project", project.getName());
+            sendMessage("projectDisconnected", message);
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
     }
 
     @Override
-    public void sendMessage(String type, JsonElement content) {
-        JsonObject message = content.getAsJsonObject();
+    public void sendMessage(String type, JSONObject content) {
         for (IConnection connection : connectionMap.values()) {
-            message.addProperty("callback_id", callbackID);
-            message.addProperty("requestSenderID", senderID);
-            message.addProperty("responseSenderID", senderID);
-            message.addProperty("username", "defaultuser");
-            connection.sendMessage(type, message);
+            try {
+                content.put("callback_id", callbackID);
+                content.put("requestSenderID", senderID != null ? senderID : JSONObject.NULL);
+                content.put("responseSenderID", senderID != null ? senderID : JSONObject.NULL);
+                content.put("username", "defaultuser");
+            } catch (JSONException e) {
+                e.printStackTrace();
+                continue;
+            }
+            connection.sendMessage(type, content);
+            queuedCount.inc();
         }
     }
 
@@ -130,7 +195,14 @@ public class ConnectionServiceImpl implements ConnectionService {
             boolean nameEquals = Objects.equal(entry.getValue().getName(), event.getName());
             boolean typeEquals = entry.getValue().getType().equals(event.getType());
             if(nameEquals && typeEquals){
-                sendMessage(entry.getKey(), event.serialize());
+                if(event instanceof IPagedEvent){
+                    Iterator<JSONObject> pages = ((IPagedEvent) event).serializePages();
+                    while (pages.hasNext()) {
+                        sendMessage(entry.getKey(), pages.next());
+                    }
+                } else {
+                    sendMessage(entry.getKey(), event.serialize());
+                }
             }
         }
     }
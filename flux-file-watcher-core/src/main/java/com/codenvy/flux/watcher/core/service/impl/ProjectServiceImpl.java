@@ -4,10 +4,11 @@ import com.codenvy.flux.watcher.core.model.Project;
 import com.codenvy.flux.watcher.core.repository.ProjectRepository;
 import com.codenvy.flux.watcher.core.service.ConnectionService;
 import com.codenvy.flux.watcher.core.service.ProjectService;
-import com.codenvy.flux.watcher.core.service.ResourceService;
+import com.codenvy.flux.watcher.core.service.WatcherService;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.io.IOException;
 import java.util.Set;
 
 @Singleton
@@ -17,10 +18,10 @@ public class ProjectServiceImpl implements ProjectService {
     private ProjectRepository projectRepository;
 
     @Inject
-    private ResourceService resourceService;
+    private ConnectionService connectionService;
 
     @Inject
-    private ConnectionService connectionService;
+    private WatcherService watcherService;
 
     @Override
     public Set<Project> findAll() {
@@ -29,19 +30,27 @@ public class ProjectServiceImpl implements ProjectService {
 
     @Override
     public Project find(String name) {
-        Project project = projectRepository.findByName(name);
-        project.setResources(resourceService.findAll(project));
-        return project;
+        return projectRepository.findByName(name);
     }
 
     @Override
     public void connect(Project project) {
         projectRepository.save(project);
+        try {
+            watcherService.watch(project);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
         connectionService.connectProject(project);
     }
 
     @Override
     public void disconnect(Project project) {
+        try {
+            watcherService.unwatch(project);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
         projectRepository.delete(project);
         connectionService.disconnectProject(project);
     }
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.adapter;
+
+import com.codenvy.flux.watcher.core.connection.impl.JsonConverter;
+import com.codenvy.flux.watcher.core.enums.ResourceType;
+import com.codenvy.flux.watcher.core.model.Resource;
+import com.google.common.base.Charsets;
+import com.google.common.io.BaseEncoding;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResourceTypeAdapterTest {
+
+    @Test
+    public void contentIsAttachedWhenTheRequestAcceptsIt() throws Exception {
+        byte[] content = new byte[4096];
+        new Random(42).nextBytes(content);
+        Attachments attachments = new Attachments();
+        JsonElement tree = new ResourceTypeAdapter(attachments).toJsonTree(resource(content).setAttachContent(true));
+        assertEquals(0, Attachments.indexOf(tree.getAsJsonObject().get("content")));
+
+        JSONObject wire = (JSONObject)JsonCodec.toWire(new ResourceTypeAdapter(new Attachments()),
+                                                       resource(content).setAttachContent(true));
+        assertSame(content, wire.get("content"));
+
+        Attachments received = new Attachments();
+        Resource resource = new ResourceTypeAdapter(received).fromJsonTree(JsonConverter.toGson(wire, received));
+        assertArrayEquals(content, resource.getContent());
+    }
+
+    @Test
+    public void contentIsTextForPeersWithoutAttachmentSupport() throws Exception {
+        byte[] content = "héllo".getBytes(Charsets.UTF_8);
+        Attachments attachments = new Attachments();
+        JsonObject tree = new ResourceTypeAdapter(attachments).toJsonTree(resource(content)).getAsJsonObject();
+
+        assertEquals("héllo", tree.get("content").getAsString());
+        assertFalse(tree.has("encoding"));
+        assertEquals(0, attachments.size());
+        assertArrayEquals(content, new ResourceTypeAdapter(attachments).fromJsonTree(tree).getContent());
+    }
+
+    @Test
+    public void nonUtf8ContentIsBase64ForPeersWithoutAttachmentSupport() throws Exception {
+        // a Latin-1 text and a truncated UTF-8 sequence, neither is valid UTF-8
+        byte[] content = {'c', 'a', 'f', (byte)0xE9, '\n', (byte)0xE2, (byte)0x82, 0, (byte)0xFF};
+        Attachments attachments = new Attachments();
+        JsonObject tree = new ResourceTypeAdapter(attachments).toJsonTree(resource(content)).getAsJsonObject();
+
+        assertEquals(ResourceTypeAdapter.BASE64_ENCODING, tree.get("encoding").getAsString());
+        assertEquals(0, attachments.size());
+        Attachments received = new Attachments();
+        Object wire = JsonCodec.toWire(new ResourceTypeAdapter(new Attachments()), resource(content));
+        Resource resource = new ResourceTypeAdapter(received).fromJsonTree(JsonConverter.toGson(wire, received));
+        assertArrayEquals(content, resource.getContent());
+        assertNull(resource.getEncoding());
+    }
+
+    @Test
+    public void wireIsStreamedWithTheFieldsOfTheTree() throws Exception {
+        Resource resource = resource("text".getBytes(Charsets.UTF_8)).setTimestamp(42L).setHash("h")
+                                                                     .setAcceptEncoding(new String[]{"deflate"});
+        Object wire = JsonCodec.toWire(new ResourceTypeAdapter(new Attachments()), resource);
+
+        assertEquals(new ResourceTypeAdapter(new Attachments()).toJsonTree(resource),
+                     JsonConverter.toGson(wire, new Attachments()));
+    }
+
+    @Test
+    public void compressedContentIsBase64WithoutAttachments() throws Exception {
+        byte[] content = {0, -1, 2, -3};
+        JsonObject tree = new ResourceTypeAdapter().toJsonTree(resource(content).setEncoding("deflate")).getAsJsonObject();
+
+        assertEquals(BaseEncoding.base64().encode(content), tree.get("content").getAsString());
+        assertArrayEquals(content, new ResourceTypeAdapter().fromJsonTree(tree).getContent());
+    }
+
+    @Test
+    public void acceptBinaryIsOnlyWrittenOnRequestsAcceptingIt() throws Exception {
+        JsonObject request = new ResourceTypeAdapter().toJsonTree(resource(null).setAcceptBinary(true)).getAsJsonObject();
+        JsonObject response = new ResourceTypeAdapter().toJsonTree(resource(null)).getAsJsonObject();
+
+        assertTrue(new ResourceTypeAdapter().fromJsonTree(request).isAcceptBinary());
+        assertFalse(response.has("acceptBinary"));
+    }
+
+    private static Resource resource(byte[] content) {
+        return new Resource("src/a.bin", "project").setType(ResourceType.FILE).setContent(content);
+    }
+}
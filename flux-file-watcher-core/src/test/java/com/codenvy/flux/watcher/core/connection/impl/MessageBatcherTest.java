@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.connection.impl;
+
+import com.google.common.collect.Lists;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class MessageBatcherTest {
+
+    private final List<JSONObject> sent = Collections.synchronizedList(Lists.<JSONObject>newArrayList());
+
+    private final MessageBatcher.Sink sink = new MessageBatcher.Sink() {
+        @Override
+        public void send(String type, JSONObject content) {
+            sent.add(content);
+        }
+    };
+
+    @Test
+    public void batchedMessagesIgnoreLaterChangesOfTheirContent() throws Exception {
+        MessageBatcher batcher = new MessageBatcher(sink, 10, 1000);
+        JSONObject message = new JSONObject();
+        message.put("project", "p");
+        batcher.send("projectConnected", message);
+        message.put("includeDeleted", true);
+        batcher.send("getProjectRequest", message);
+        batcher.flush();
+
+        assertEquals(1, sent.size());
+        JSONObject first = frameMessage(sent.get(0), 0);
+        assertFalse(first.has("includeDeleted"));
+        assertEquals(2, frameMessage(sent.get(0), 1).length());
+    }
+
+    @Test
+    public void timerOfAFullBatchDoesNotFlushTheNextOne() throws Exception {
+        MessageBatcher batcher = new MessageBatcher(sink, 2, 300);
+        batcher.send("a", new JSONObject());
+        batcher.send("b", new JSONObject());
+        assertEquals(1, sent.size());
+
+        Thread.sleep(200);
+        batcher.send("c", new JSONObject());
+        // the timer of the first batch would have fired 300ms after it was started
+        Thread.sleep(200);
+        assertEquals(1, sent.size());
+        Thread.sleep(300);
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    public void binaryValuesOfBatchedMessagesAreSentInTheFrame() throws Exception {
+        MessageBatcher batcher = new MessageBatcher(sink, 10, 1000);
+        List<byte[]> contents = Lists.newArrayList();
+        for (byte value = 1; value <= 2; value++) {
+            JSONObject message = new JSONObject();
+            message.put("content", new byte[]{value});
+            contents.add((byte[])message.get("content"));
+            batcher.send("getResourceResponse", message);
+        }
+        batcher.flush();
+
+        for (int i = 0; i < 2; i++) {
+            assertSame(contents.get(i), frameMessage(sent.get(0), i).get("content"));
+        }
+    }
+
+    private static JSONObject frameMessage(JSONObject frame, int index) throws Exception {
+        return frame.getJSONArray("messages").getJSONObject(index).getJSONObject("data");
+    }
+}
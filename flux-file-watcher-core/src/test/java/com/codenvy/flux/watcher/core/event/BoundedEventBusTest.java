@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.event;
+
+import com.codenvy.flux.watcher.core.enums.EventType;
+import com.codenvy.flux.watcher.core.model.Resource;
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedEventBusTest {
+
+    @Test
+    public void requestsAreNeverCoalesced() throws Exception {
+        HeldExecutor executor = new HeldExecutor();
+        BoundedEventBus eventBus = new BoundedEventBus(executor, 1, 16, BoundedEventBus.Policy.COALESCE);
+        Recorder recorder = new Recorder(5);
+        eventBus.register(recorder);
+        eventBus.post(new ResourceEvent(EventType.REQUEST, resource()));
+        eventBus.post(new ResourceEvent(EventType.REQUEST, resource()));
+        eventBus.post(new LocalResourceEvent(EventType.CHANGE, resource().setHash("1")));
+        eventBus.post(new LocalResourceEvent(EventType.CHANGE, resource().setHash("2")));
+        eventBus.post(new ResourceEvent(EventType.RESPONSE, resource()));
+        eventBus.post(new ResourceEvent(EventType.RESPONSE, resource()));
+
+        assertEquals(1, eventBus.getCoalescedCount());
+        assertEquals(5, eventBus.getQueueDepth());
+        executor.release();
+        assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+        assertEquals("2", ((LocalResourceEvent)recorder.events.get(2)).getResource().getHash());
+    }
+
+    @Test
+    public void subscriberPostingToAFullQueueDoesNotDeadlock() throws Exception {
+        final BoundedEventBus eventBus = new BoundedEventBus(new ThreadExecutor(), 1, 1, BoundedEventBus.Policy.BLOCK);
+        Recorder recorder = new Recorder(10);
+        eventBus.register(recorder);
+        eventBus.register(new Object() {
+            @Subscribe
+            @AllowConcurrentEvents
+            public void onEvent(ResourceEvent event) {
+                for (int i = 0; i < 10; i++) {
+                    eventBus.post(new LocalResourceEvent(EventType.CREATE, resource()));
+                }
+            }
+        });
+        eventBus.post(new ResourceEvent(EventType.CREATE, resource()));
+        assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+    }
+
+    private static Resource resource() {
+        return new Resource("src/A.java", "project");
+    }
+
+    public static class Recorder {
+        private final List<Object> events = Collections.synchronizedList(Lists.newArrayList());
+
+        private final CountDownLatch done;
+
+        private Recorder(int expected) {
+            done = new CountDownLatch(expected);
+        }
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void onLocalEvent(LocalResourceEvent event) {
+            record(event);
+        }
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void onRemoteEvent(ResourceEvent event) {
+            if (event.getType() != EventType.CREATE)
+                record(event);
+        }
+
+        private void record(Object event) {
+            events.add(event);
+            done.countDown();
+        }
+    }
+
+    private static class ThreadExecutor implements Executor {
+        @Override
+        public void execute(Runnable command) {
+            Thread thread = new Thread(command);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Starts the workers only once released, so events pile up in the queue.
+     */
+    private static class HeldExecutor extends ThreadExecutor {
+        private final List<Runnable> workers = Lists.newArrayList();
+
+        @Override
+        public void execute(Runnable command) {
+            workers.add(command);
+        }
+
+        private void release() {
+            for (Runnable worker : workers) {
+                super.execute(worker);
+            }
+        }
+    }
+}
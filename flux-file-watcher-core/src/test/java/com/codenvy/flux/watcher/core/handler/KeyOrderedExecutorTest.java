@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.handler;
+
+import com.codenvy.flux.watcher.core.enums.ResourceType;
+import com.codenvy.flux.watcher.core.model.Resource;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.name.Names;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KeyOrderedExecutorTest {
+
+    private final List<KeyOrderedExecutor> executors = Lists.newArrayList();
+
+    @After
+    public void shutdown() {
+        for (KeyOrderedExecutor executor : executors) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void tasksWithTheSameKeyRunInSubmissionOrder() throws Exception {
+        KeyOrderedExecutor executor = newExecutor(4, 16);
+        final List<Integer> order = Collections.synchronizedList(Lists.<Integer>newArrayList());
+        final CountDownLatch done = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; i++) {
+            final int index = i;
+            executor.execute("key", new Runnable() {
+                @Override
+                public void run() {
+                    order.add(index);
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int)order.get(i));
+        }
+    }
+
+    @Test
+    public void childrenRunAfterTheirParentFolder() throws Exception {
+        KeyOrderedExecutor executor = newExecutor(64, 16);
+        final List<String> order = Collections.synchronizedList(Lists.<String>newArrayList());
+        final CountDownLatch done = new CountDownLatch(3);
+        for (final String path : new String[]{"src", "src/main/A.java", "src/test/B.java"}) {
+            executor.execute(new Resource(path, "project"), new Runnable() {
+                @Override
+                public void run() {
+                    if (path.equals("src"))
+                        sleep(200);
+                    order.add(path);
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        // the children are independent of each other, only the folder has to come first
+        assertEquals("src", order.get(0));
+        assertEquals(Sets.newHashSet("src/main/A.java", "src/test/B.java"), Sets.newHashSet(order.subList(1, 3)));
+    }
+
+    @Test
+    public void folderDeleteRunsAfterTheChildrenBelowIt() throws Exception {
+        KeyOrderedExecutor executor = newExecutor(64, 16);
+        final List<String> order = Collections.synchronizedList(Lists.<String>newArrayList());
+        final CountDownLatch done = new CountDownLatch(2);
+        executor.execute(new Resource("src/main/A.java", "project").setType(ResourceType.FILE), new Runnable() {
+            @Override
+            public void run() {
+                sleep(200);
+                order.add("src/main/A.java");
+                done.countDown();
+            }
+        });
+        executor.execute(new Resource("src", "project").setType(ResourceType.FOLDER), new Runnable() {
+            @Override
+            public void run() {
+                order.add("src");
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Lists.newArrayList("src/main/A.java", "src"), order);
+    }
+
+    @Test
+    public void filesOfOneFolderRunInParallel() throws Exception {
+        KeyOrderedExecutor executor = newExecutor(32, 16);
+        final CountDownLatch done = new CountDownLatch(32);
+        long start = System.nanoTime();
+        for (int i = 0; i < 32; i++) {
+            Resource resource = new Resource("src/main/java/File" + i + ".java", "project").setType(ResourceType.FILE);
+            executor.execute(resource, new Runnable() {
+                @Override
+                public void run() {
+                    sleep(50);
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 1600ms when the files share a stripe
+        assertTrue("32 files of 50ms took " + elapsed + "ms", elapsed < 600);
+    }
+
+    @Test
+    public void shutdownStopsTheStripes() throws Exception {
+        KeyOrderedExecutor executor = newExecutor(2, 16);
+        executor.shutdown();
+        final CountDownLatch done = new CountDownLatch(1);
+        executor.execute("key", new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void tasksWithDifferentKeysRunInParallel() throws Exception {
+        int stripes = 4;
+        KeyOrderedExecutor executor = newExecutor(stripes, 16);
+        // passes only if one task of every stripe waits at the barrier at the same time
+        final CyclicBarrier barrier = new CyclicBarrier(stripes);
+        final CountDownLatch done = new CountDownLatch(stripes);
+        for (int key = 0; key < stripes; key++) {
+            executor.execute(key, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        barrier.await(5, TimeUnit.SECONDS);
+                        done.countDown();
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void throughputScalesAcrossKeys() throws Exception {
+        long serial = runBlockingTasks(newExecutor(1, 64), 8);
+        long striped = runBlockingTasks(newExecutor(8, 64), 8);
+        assertTrue("1 stripe took " + serial + "ms, 8 stripes took " + striped + "ms", striped * 3 < serial);
+    }
+
+    @Test
+    public void submitterBlocksWhileTheStripeIsFull() throws Exception {
+        final KeyOrderedExecutor executor = newExecutor(1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        Runnable blocked = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }
+        };
+        executor.execute("key", blocked);
+        executor.execute("key", blocked);
+        final CountDownLatch submitted = new CountDownLatch(1);
+        Thread submitter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute("key", new Runnable() {
+                    @Override
+                    public void run() {
+                        done.countDown();
+                    }
+                });
+                submitted.countDown();
+            }
+        });
+        submitter.start();
+        assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(submitted.await(5, TimeUnit.SECONDS));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Runs 8 tasks of 50ms for each of the given number of keys and returns the elapsed milliseconds.
+     */
+    private static long runBlockingTasks(KeyOrderedExecutor executor, int keys) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(keys * 8);
+        long start = System.nanoTime();
+        for (int i = 0; i < 8; i++) {
+            for (int key = 0; key < keys; key++) {
+                executor.execute(key, new Runnable() {
+                    @Override
+                    public void run() {
+                        sleep(50);
+                        done.countDown();
+                    }
+                });
+            }
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private KeyOrderedExecutor newExecutor(final int stripes, final int queueSize) {
+        KeyOrderedExecutor executor = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bindConstant().annotatedWith(Names.named(KeyOrderedExecutor.STRIPES)).to(stripes);
+                bindConstant().annotatedWith(Names.named(KeyOrderedExecutor.QUEUE_SIZE)).to(queueSize);
+            }
+        }).getInstance(KeyOrderedExecutor.class);
+        executors.add(executor);
+        return executor;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -12,10 +12,18 @@ package com.codenvy.flux.watcher.fs;
 
 import com.codenvy.flux.watcher.core.service.ResourceService;
 import com.codenvy.flux.watcher.core.service.WatcherService;
+import com.codenvy.flux.watcher.fs.ignore.IgnoreService;
+import com.codenvy.flux.watcher.fs.index.ResourceIndex;
+import com.codenvy.flux.watcher.fs.scanner.ProjectScanner;
+import com.codenvy.flux.watcher.fs.service.InotifyWatcherServiceImpl;
+import com.codenvy.flux.watcher.fs.service.PollingWatcherServiceImpl;
 import com.codenvy.flux.watcher.fs.service.ResourceServiceImpl;
 import com.codenvy.flux.watcher.fs.service.WatcherServiceImpl;
+import com.codenvy.flux.watcher.fs.watcher.EchoSuppressor;
+import com.codenvy.flux.watcher.fs.watcher.EventCoalescer;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
+import com.google.inject.name.Names;
 
 import javax.inject.Singleton;
 import java.nio.file.FileSystem;
@@ -27,10 +35,48 @@ import java.nio.file.FileSystems;
  * @author Kevin Pollet
  */
 public class JDKModule extends AbstractModule {
+    private final Class<? extends WatcherService> watcherServiceClass;
+
+    /**
+     * Binds the {@link java.nio.file.WatchService} based watcher.
+     */
+    public JDKModule() {
+        this(WatcherServiceImpl.class);
+    }
+
+    /**
+     * Binds the given watcher backend, for example {@link PollingWatcherServiceImpl} where file system notifications
+     * are not available or {@link InotifyWatcherServiceImpl} on Linux.
+     */
+    public JDKModule(Class<? extends WatcherService> watcherServiceClass) {
+        this.watcherServiceClass = watcherServiceClass;
+    }
+
     @Override
     protected void configure() {
         bind(ResourceService.class).to(ResourceServiceImpl.class);
-        bind(WatcherService.class).to(WatcherServiceImpl.class);
+        bind(WatcherService.class).to(watcherServiceClass);
+
+        bindConstant().annotatedWith(Names.named(ResourceIndex.INDEX_DIRECTORY))
+                      .to(System.getProperty(ResourceIndex.INDEX_DIRECTORY, System.getProperty("user.home") + "/.flux/index"));
+        bindConstant().annotatedWith(Names.named(ProjectScanner.PARALLELISM))
+                      .to(Integer.getInteger(ProjectScanner.PARALLELISM, Runtime.getRuntime().availableProcessors()));
+        bindConstant().annotatedWith(Names.named(EventCoalescer.QUIET_WINDOW))
+                      .to(Long.getLong(EventCoalescer.QUIET_WINDOW, 200L));
+        bindConstant().annotatedWith(Names.named(EchoSuppressor.WINDOW))
+                      .to(Long.getLong(EchoSuppressor.WINDOW, 5000L));
+        bindConstant().annotatedWith(Names.named(IgnoreService.DEFAULT_RULES))
+                      .to(System.getProperty(IgnoreService.DEFAULT_RULES, ".git/,.hg/,.svn/"));
+        bindConstant().annotatedWith(Names.named(ResourceServiceImpl.MAX_INLINE_SIZE))
+                      .to(Long.getLong(ResourceServiceImpl.MAX_INLINE_SIZE, 16 * 1024 * 1024L));
+        bindConstant().annotatedWith(Names.named(PollingWatcherServiceImpl.MIN_INTERVAL))
+                      .to(Long.getLong(PollingWatcherServiceImpl.MIN_INTERVAL, 500L));
+        bindConstant().annotatedWith(Names.named(PollingWatcherServiceImpl.MAX_INTERVAL))
+                      .to(Long.getLong(PollingWatcherServiceImpl.MAX_INTERVAL, 5000L));
+        bindConstant().annotatedWith(Names.named(PollingWatcherServiceImpl.CYCLE_BUDGET))
+                      .to(Long.getLong(PollingWatcherServiceImpl.CYCLE_BUDGET, 50L));
+        bindConstant().annotatedWith(Names.named(InotifyWatcherServiceImpl.READ_BUFFER_SIZE))
+                      .to(Integer.getInteger(InotifyWatcherServiceImpl.READ_BUFFER_SIZE, 256 * 1024));
     }
 
     @Singleton
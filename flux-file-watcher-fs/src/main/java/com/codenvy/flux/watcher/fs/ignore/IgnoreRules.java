@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs.ignore;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * Compiled {@code .gitignore} style rules of a project, matched against project relative paths.
+ * <p/>
+ * Supported syntax: {@code #} comments, {@code !} negation, a trailing {@code /} for directories only, a leading or
+ * inner {@code /} to anchor the pattern to the project root, {@code *}, {@code ?}, {@code [...]} classes and {@code **}
+ * across directories. Like git, the last matching rule wins. Matching walks the path in place and does not allocate.
+ * A path below an ignored directory is not reported as ignored itself, callers are expected to prune the walk.
+ */
+public class IgnoreRules {
+    public static final IgnoreRules NONE = new IgnoreRules(new Rule[0]);
+
+    private final Rule[] rules;
+
+    private IgnoreRules(Rule[] rules) {
+        this.rules = rules;
+    }
+
+    public static IgnoreRules compile(List<String> lines) {
+        List<Rule> rules = Lists.newArrayList();
+        for (String line : lines) {
+            Rule rule = Rule.compile(line);
+            if (rule != null)
+                rules.add(rule);
+        }
+        return new IgnoreRules(rules.toArray(new Rule[rules.size()]));
+    }
+
+    public boolean isEmpty() {
+        return rules.length == 0;
+    }
+
+    public boolean isIgnored(String path, boolean directory) {
+        for (int i = rules.length - 1; i >= 0; i--) {
+            Rule rule = rules[i];
+            if (rule.matches(path, directory))
+                return !rule.negated;
+        }
+        return false;
+    }
+
+    private static class Rule {
+        private final char[] pattern;
+
+        private final boolean negated;
+
+        private final boolean directoryOnly;
+
+        private final boolean anchored;
+
+        private Rule(char[] pattern, boolean negated, boolean directoryOnly, boolean anchored) {
+            this.pattern = pattern;
+            this.negated = negated;
+            this.directoryOnly = directoryOnly;
+            this.anchored = anchored;
+        }
+
+        private static Rule compile(String line) {
+            int end = line.length();
+            while (end > 0 && line.charAt(end - 1) == ' ' && (end < 2 || line.charAt(end - 2) != '\\')) {
+                end--;
+            }
+            String pattern = line.substring(0, end);
+            if (pattern.isEmpty() || pattern.charAt(0) == '#')
+                return null;
+            boolean negated = pattern.charAt(0) == '!';
+            if (negated)
+                pattern = pattern.substring(1);
+            else if (pattern.startsWith("\\#") || pattern.startsWith("\\!"))
+                pattern = pattern.substring(1);
+            boolean directoryOnly = pattern.endsWith("/");
+            if (directoryOnly)
+                pattern = pattern.substring(0, pattern.length() - 1);
+            boolean anchored = pattern.indexOf('/') >= 0;
+            if (pattern.startsWith("/"))
+                pattern = pattern.substring(1);
+            if (pattern.isEmpty())
+                return null;
+            return new Rule(pattern.toCharArray(), negated, directoryOnly, anchored);
+        }
+
+        private boolean matches(String path, boolean directory) {
+            if (directoryOnly && !directory)
+                return false;
+            int start = 0;
+            if (!anchored) {
+                for (int i = path.length() - 1; i >= 0; i--) {
+                    if (isSeparator(path.charAt(i))) {
+                        start = i + 1;
+                        break;
+                    }
+                }
+            }
+            return match(pattern, 0, path, start, path.length());
+        }
+
+        private static boolean match(char[] p, int pi, String t, int ti, int tEnd) {
+            while (pi < p.length) {
+                char c = p[pi];
+                if (c == '*') {
+                    if (pi + 1 < p.length && p[pi + 1] == '*') {
+                        int next = pi + 2;
+                        if (next < p.length && p[next] == '/') {
+                            // "**/" matches zero or more leading directories
+                            if (match(p, next + 1, t, ti, tEnd))
+                                return true;
+                            for (int i = ti; i < tEnd; i++) {
+                                if (isSeparator(t.charAt(i)) && match(p, next + 1, t, i + 1, tEnd))
+                                    return true;
+                            }
+                            return false;
+                        }
+                        for (int i = tEnd; i >= ti; i--) {
+                            if (match(p, next, t, i, tEnd))
+                                return true;
+                        }
+                        return false;
+                    }
+                    for (int i = ti; ; i++) {
+                        if (match(p, pi + 1, t, i, tEnd))
+                            return true;
+                        if (i >= tEnd || isSeparator(t.charAt(i)))
+                            return false;
+                    }
+                }
+                if (ti >= tEnd)
+                    return false;
+                char tc = t.charAt(ti);
+                if (c == '?') {
+                    if (isSeparator(tc))
+                        return false;
+                } else if (c == '[' && classEnd(p, pi) > 0) {
+                    int close = classEnd(p, pi);
+                    if (isSeparator(tc) || !classMatches(p, pi + 1, close, tc))
+                        return false;
+                    pi = close;
+                } else if (c == '/') {
+                    if (!isSeparator(tc))
+                        return false;
+                } else {
+                    if (c == '\\' && pi + 1 < p.length)
+                        c = p[++pi];
+                    if (c != tc)
+                        return false;
+                }
+                pi++;
+                ti++;
+            }
+            return ti == tEnd;
+        }
+
+        private static int classEnd(char[] p, int open) {
+            int i = open + 1;
+            if (i < p.length && (p[i] == '!' || p[i] == '^'))
+                i++;
+            if (i < p.length && p[i] == ']')
+                i++;
+            for (; i < p.length; i++) {
+                if (p[i] == ']')
+                    return i;
+            }
+            return -1;
+        }
+
+        private static boolean classMatches(char[] p, int start, int end, char c) {
+            boolean negated = p[start] == '!' || p[start] == '^';
+            if (negated)
+                start++;
+            boolean matched = false;
+            for (int i = start; i < end; i++) {
+                if (i + 2 < end && p[i + 1] == '-') {
+                    if (c >= p[i] && c <= p[i + 2])
+                        matched = true;
+                    i += 2;
+                } else if (p[i] == c) {
+                    matched = true;
+                }
+            }
+            return matched != negated;
+        }
+
+        private static boolean isSeparator(char c) {
+            return c == '/' || c == '\\';
+        }
+    }
+}
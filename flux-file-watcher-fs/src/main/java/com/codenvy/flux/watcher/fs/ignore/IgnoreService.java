@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs.ignore;
+
+import com.codenvy.flux.watcher.core.model.Project;
+import com.codenvy.flux.watcher.fs.io.AtomicFileWriter;
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Provides the compiled ignore rules of each project: the default rules followed by the {@code .gitignore} and
+ * {@code .fluxignore} files found at the project root, then a rule for the temporary files of
+ * {@link com.codenvy.flux.watcher.fs.io.AtomicFileWriter}. Rules are compiled once per project and kept until
+ * {@link #invalidate(com.codenvy.flux.watcher.core.model.Project)} is called.
+ */
+@Singleton
+public class IgnoreService {
+    public static final String DEFAULT_RULES = "flux.ignore.defaults";
+
+    private static final Set<String> IGNORE_FILES = ImmutableSet.of(".gitignore", ".fluxignore");
+
+    private final ConcurrentMap<String, IgnoreRules> projectRules = Maps.newConcurrentMap();
+
+    @Inject
+    private FileSystem fileSystem;
+
+    @Inject
+    @Named(DEFAULT_RULES)
+    private String defaultRules;
+
+    public IgnoreRules getRules(Project project) {
+        IgnoreRules rules = projectRules.get(project.getPath());
+        if (rules == null) {
+            rules = load(fileSystem.getPath(project.getPath()));
+            IgnoreRules previous = projectRules.putIfAbsent(project.getPath(), rules);
+            if (previous != null)
+                rules = previous;
+        }
+        return rules;
+    }
+
+    public void invalidate(Project project) {
+        projectRules.remove(project.getPath());
+    }
+
+    /**
+     * Returns whether the given project relative path is one of the files the rules are read from.
+     */
+    public boolean isIgnoreFile(String path) {
+        return IGNORE_FILES.contains(path);
+    }
+
+    private IgnoreRules load(Path projectPath) {
+        List<String> lines = Lists.newArrayList(Splitter.on(',').trimResults().omitEmptyStrings().split(defaultRules));
+        for (String ignoreFile : IGNORE_FILES) {
+            try {
+                lines.addAll(Files.readAllLines(projectPath.resolve(ignoreFile), Charsets.UTF_8));
+            } catch (NoSuchFileException e) {
+                // no rules of this kind
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        lines.add(AtomicFileWriter.TEMP_FILE_RULE);
+        return IgnoreRules.compile(lines);
+    }
+}
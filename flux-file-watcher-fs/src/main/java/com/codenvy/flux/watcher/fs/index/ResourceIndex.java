@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs.index;
+
+import com.codenvy.flux.watcher.core.metrics.Counter;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
+import com.codenvy.flux.watcher.fs.io.ContentHasher;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Persistent index of the file hashes of each project, keyed by the resource path relative to the project.
+ * <p/>
+ * A cached hash is only returned while the size, the modification time and the file key of the file are the ones
+ * recorded with it, so only files whose stat changed have to be read and hashed again. Like the racily clean entries
+ * of git, an entry indexed shortly after its file was modified is kept but verified against the content of the file
+ * on lookup, until a verification happens late enough for the stat to be trusted. The index of a project is loaded
+ * from the index directory on first use and written back by {@link #flush(java.nio.file.Path)}.
+ */
+@Singleton
+public class ResourceIndex {
+    public static final String INDEX_DIRECTORY = "flux.index.directory";
+
+    private static final int MAGIC = 0x464c5849;
+    private static final int VERSION = 2;
+
+    /**
+     * Files modified less than this before they are indexed could still change within the same timestamp tick, their
+     * entries are racy.
+     */
+    private static final long RACY_WINDOW_MILLIS = 2000;
+
+    private final ConcurrentMap<Path, ProjectIndex> projectIndexes = Maps.newConcurrentMap();
+
+    @Inject
+    private FileSystem fileSystem;
+
+    @Inject
+    @Named(INDEX_DIRECTORY)
+    private String indexDirectory;
+
+    @Inject
+    private MetricsRegistry metrics;
+
+    private Counter racyCount;
+
+    private Counter bytesHashed;
+
+    @Inject
+    public void init() {
+        racyCount = metrics.counter("index.racyVerified");
+        bytesHashed = metrics.counter("resource.bytesHashed");
+    }
+
+    /**
+     * Returns the indexed hash of the file, or {@code null} if it has to be hashed. The hash of a racy entry is
+     * verified by hashing the file, the entry is indexed again with the result.
+     */
+    public String getHash(Path projectPath, String path, BasicFileAttributes attrs) {
+        Entry entry = projectIndex(projectPath).entries.get(path);
+        if (entry == null || !entry.matches(attrs))
+            return null;
+        if (!entry.isRacy())
+            return entry.hash;
+        String hash;
+        try {
+            hash = ContentHasher.hash(projectPath.resolve(path));
+        } catch (IOException e) {
+            return null;
+        }
+        racyCount.inc();
+        bytesHashed.add(attrs.size());
+        put(projectPath, path, attrs, hash);
+        return hash;
+    }
+
+    public void put(Path projectPath, String path, BasicFileAttributes attrs, String hash) {
+        ProjectIndex projectIndex = projectIndex(projectPath);
+        Entry entry = new Entry(attrs.size(), attrs.lastModifiedTime().toMillis(), fileKey(attrs), hash,
+                                System.currentTimeMillis());
+        projectIndex.entries.put(path, entry);
+        projectIndex.dirty = true;
+    }
+
+    public void remove(Path projectPath, String path) {
+        ProjectIndex projectIndex = projectIndex(projectPath);
+        if (projectIndex.entries.remove(path) != null)
+            projectIndex.dirty = true;
+        String prefix = path + projectPath.getFileSystem().getSeparator();
+        Iterator<String> iterator = projectIndex.entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().startsWith(prefix)) {
+                iterator.remove();
+                projectIndex.dirty = true;
+            }
+        }
+    }
+
+    public void retainAll(Path projectPath, Set<String> paths) {
+        ProjectIndex projectIndex = projectIndex(projectPath);
+        if (projectIndex.entries.keySet().retainAll(paths))
+            projectIndex.dirty = true;
+    }
+
+    public void flush(Path projectPath) {
+        ProjectIndex projectIndex = projectIndexes.get(projectPath);
+        if (projectIndex == null || !projectIndex.dirty)
+            return;
+        synchronized (projectIndex) {
+            projectIndex.dirty = false;
+            try {
+                write(projectIndex);
+            } catch (IOException e) {
+                projectIndex.dirty = true;
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private ProjectIndex projectIndex(Path projectPath) {
+        ProjectIndex projectIndex = projectIndexes.get(projectPath);
+        if (projectIndex == null) {
+            projectIndex = new ProjectIndex(indexFile(projectPath));
+            try {
+                read(projectIndex);
+            } catch (IOException e) {
+                projectIndex.entries.clear();
+                projectIndex.dirty = true;
+            }
+            ProjectIndex previous = projectIndexes.putIfAbsent(projectPath, projectIndex);
+            if (previous != null)
+                return previous;
+        }
+        return projectIndex;
+    }
+
+    private Path indexFile(Path projectPath) {
+        String name = Hashing.sha1().hashString(projectPath.toAbsolutePath().toString(), Charsets.UTF_8).toString();
+        return fileSystem.getPath(indexDirectory).resolve(name + ".idx");
+    }
+
+    private void read(ProjectIndex projectIndex) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(projectIndex.file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Unsupported index file " + projectIndex.file);
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String path = in.readUTF();
+                projectIndex.entries.put(path, new Entry(in.readLong(), in.readLong(), in.readUTF(), in.readUTF(),
+                                                         in.readLong()));
+            }
+        } catch (NoSuchFileException e) {
+            // nothing indexed yet for this project
+        }
+    }
+
+    private void write(ProjectIndex projectIndex) throws IOException {
+        Path file = projectIndex.file;
+        Files.createDirectories(file.getParent());
+        Path tmpFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+                Map<String, Entry> entries = Maps.newHashMap(projectIndex.entries);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().size);
+                    out.writeLong(entry.getValue().lastModified);
+                    out.writeUTF(entry.getValue().fileKey);
+                    out.writeUTF(entry.getValue().hash);
+                    out.writeLong(entry.getValue().indexedAt);
+                }
+            }
+            try {
+                Files.move(tmpFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, file, REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    private static String fileKey(BasicFileAttributes attrs) {
+        Object fileKey = attrs.fileKey();
+        return fileKey == null ? "" : fileKey.toString();
+    }
+
+    private static class ProjectIndex {
+        private final Path file;
+
+        private final ConcurrentMap<String, Entry> entries = Maps.newConcurrentMap();
+
+        private volatile boolean dirty;
+
+        private ProjectIndex(Path file) {
+            this.file = file;
+        }
+    }
+
+    private static class Entry {
+        private final long size;
+
+        private final long lastModified;
+
+        private final String fileKey;
+
+        private final String hash;
+
+        /**
+         * When the hash was computed.
+         */
+        private final long indexedAt;
+
+        private Entry(long size, long lastModified, String fileKey, String hash, long indexedAt) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.fileKey = fileKey;
+            this.hash = hash;
+            this.indexedAt = indexedAt;
+        }
+
+        /**
+         * Returns whether the file could have changed after it was hashed without changing its stat.
+         */
+        private boolean isRacy() {
+            return indexedAt - lastModified < RACY_WINDOW_MILLIS;
+        }
+
+        private boolean matches(BasicFileAttributes attrs) {
+            return size == attrs.size()
+                   && lastModified == attrs.lastModifiedTime().toMillis()
+                   && fileKey.equals(fileKey(attrs));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs.io;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Computes the SHA-1 of resource contents. Files are streamed through a buffer reused by each thread, so the heap used
+ * does not depend on the file size.
+ */
+public final class ContentHasher {
+    private static final HashFunction HASH_FUNCTION = Hashing.sha1();
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+    };
+
+    private ContentHasher() {
+    }
+
+    public static String hash(byte[] content) {
+        return HASH_FUNCTION.hashBytes(content).toString();
+    }
+
+    public static String hash(Path path) throws IOException {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        ByteBuffer buffer = BUFFER.get();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                hasher.putBytes(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+        return hasher.hash().toString();
+    }
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs.scanner;
+
+import com.google.common.collect.Lists;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Walks a project tree on a fork/join pool. Each directory is listed by its own task and the files of a directory are
+ * visited in batches, so both deep and flat trees are spread over the pool. The pool size bounds the number of files
+ * read and hashed concurrently.
+ */
+@Singleton
+public class ProjectScanner {
+    public static final String PARALLELISM = "flux.scanner.parallelism";
+
+    private static final int FILE_BATCH_SIZE = 32;
+
+    private ForkJoinPool pool;
+
+    @Inject
+    @Named(PARALLELISM)
+    private int parallelism;
+
+    @Inject
+    public void init() {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Visits the given directory and everything below it. The visitor is called concurrently from the pool threads,
+     * symbolic links are visited but not followed. Directories the visitor returns {@code false} for are not entered.
+     */
+    public void scan(Path root, Visitor visitor) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!visitor.visit(root, attrs) || !attrs.isDirectory())
+            return;
+        try {
+            pool.invoke(new DirectoryTask(root, visitor));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public interface Visitor {
+        boolean visit(Path path, BasicFileAttributes attrs) throws IOException;
+    }
+
+    private static class DirectoryTask extends RecursiveAction {
+        private final Path dir;
+
+        private final Visitor visitor;
+
+        private DirectoryTask(Path dir, Visitor visitor) {
+            this.dir = dir;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = Lists.newArrayList();
+            List<Path> files = Lists.newArrayListWithCapacity(FILE_BATCH_SIZE);
+            List<BasicFileAttributes> fileAttrs = Lists.newArrayListWithCapacity(FILE_BATCH_SIZE);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path child : stream) {
+                    BasicFileAttributes attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attrs.isDirectory()) {
+                        if (visitor.visit(child, attrs))
+                            tasks.add(new DirectoryTask(child, visitor));
+                    } else {
+                        files.add(child);
+                        fileAttrs.add(attrs);
+                        if (files.size() == FILE_BATCH_SIZE) {
+                            tasks.add(new FileBatchTask(files, fileAttrs, visitor));
+                            files = Lists.newArrayListWithCapacity(FILE_BATCH_SIZE);
+                            fileAttrs = Lists.newArrayListWithCapacity(FILE_BATCH_SIZE);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!files.isEmpty())
+                tasks.add(new FileBatchTask(files, fileAttrs, visitor));
+            invokeAll(tasks);
+        }
+    }
+
+    private static class FileBatchTask extends RecursiveAction {
+        private final List<Path> files;
+
+        private final List<BasicFileAttributes> fileAttrs;
+
+        private final Visitor visitor;
+
+        private FileBatchTask(List<Path> files, List<BasicFileAttributes> fileAttrs, Visitor visitor) {
+            this.files = files;
+            this.fileAttrs = fileAttrs;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (int i = 0; i < files.size(); i++) {
+                    visitor.visit(files.get(i), fileAttrs.get(i));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
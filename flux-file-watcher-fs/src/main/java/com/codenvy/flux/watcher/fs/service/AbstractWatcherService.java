@@ -0,0 +1,255 @@
+package com.codenvy.flux.watcher.fs.service;
+
+import com.codenvy.flux.watcher.core.enums.EventType;
+import com.codenvy.flux.watcher.core.metrics.Counter;
+import com.codenvy.flux.watcher.core.metrics.Gauge;
+import com.codenvy.flux.watcher.core.metrics.Histogram;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
+import com.codenvy.flux.watcher.core.model.Project;
+import com.codenvy.flux.watcher.core.repository.ProjectRepository;
+import com.codenvy.flux.watcher.core.service.WatcherService;
+import com.codenvy.flux.watcher.fs.ignore.IgnoreRules;
+import com.codenvy.flux.watcher.fs.ignore.IgnoreService;
+import com.codenvy.flux.watcher.fs.watcher.ChangeGate;
+import com.codenvy.flux.watcher.fs.watcher.DirectorySnapshot;
+import com.codenvy.flux.watcher.fs.watcher.EventCoalescer;
+import com.codenvy.flux.watcher.fs.watcher.WatchRegistry;
+import com.codenvy.flux.watcher.fs.watcher.WatchRegistry.WatchedDirectory;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Base of the watcher backends: keeps the registry of watched directories with their snapshots, applies the ignore
+ * rules and turns raw directory events or snapshot differences into coalesced resource events.
+ *
+ * @param <K> the watch key type of the backend.
+ */
+public abstract class AbstractWatcherService<K> extends AbstractExecutionThreadService implements WatcherService {
+
+    protected final Object object = new Object();
+
+    protected final WatchRegistry<K> watchRegistry = new WatchRegistry<>();
+
+    @Inject
+    protected FileSystem fileSystem;
+
+    @Inject
+    protected EventCoalescer eventCoalescer;
+
+    @Inject
+    protected IgnoreService ignoreService;
+
+    @Inject
+    protected ChangeGate changeGate;
+
+    @Inject
+    protected MetricsRegistry metrics;
+
+    @Inject
+    protected ProjectRepository projectRepository;
+
+    private Counter eventCount;
+
+    private Histogram eventTime;
+
+    private Histogram rescanTime;
+
+    /**
+     * Named apart from the {@code init} methods of the backends, which would otherwise hide it from injection.
+     */
+    @Inject
+    public void initMetrics() {
+        eventCount = metrics.counter("watcher.events");
+        eventTime = metrics.histogram("watcher.eventTime");
+        rescanTime = metrics.histogram("watcher.rescanTime");
+        metrics.gauge("watcher.directories", new Gauge() {
+            @Override
+            public double getValue() {
+                return watchRegistry.size();
+            }
+        });
+    }
+
+    @Override
+    public void watch(Project project) throws IOException {
+        Path projectPath = fileSystem.getPath(project.getPath());
+        registerPath(project, projectPath, projectPath, false);
+    }
+
+    @Override
+    public void unwatch(Project project) throws IOException {
+        synchronized (object) {
+            for (K key : watchRegistry.remove(project)) {
+                cancel(key);
+            }
+        }
+        changeGate.forget(project.getName());
+    }
+
+    /**
+     * Starts watching the given directory, without its subdirectories.
+     */
+    protected abstract K register(Path dir) throws IOException;
+
+    protected abstract void cancel(K key);
+
+    /**
+     * Handles a raw event reported for a child of a watched directory.
+     */
+    protected void onEvent(WatchedDirectory directory, String name, EventType type) throws IOException {
+        eventCount.inc();
+        long start = System.nanoTime();
+        try {
+            handleEvent(directory, name, type);
+        } finally {
+            eventTime.time(start);
+        }
+    }
+
+    private void handleEvent(WatchedDirectory directory, String name, EventType type) throws IOException {
+        Project project = owner(directory);
+        if (project == null)
+            return;
+        String path = directory.resolve(project, name);
+        boolean existed = directory.getSnapshot().contains(name);
+        boolean wasDirectory = directory.getSnapshot().isDirectory(name);
+        BasicFileAttributes attrs = updateSnapshot(directory, name, type);
+        boolean isDirectory = attrs != null ? attrs.isDirectory() : wasDirectory;
+        // a file renamed over an existing one, the way editors save atomically, is reported as created
+        if (type == EventType.CREATE && existed && !wasDirectory && !isDirectory)
+            type = EventType.CHANGE;
+        if (ignoreService.getRules(project).isIgnored(path, isDirectory))
+            return;
+        if (ignoreService.isIgnoreFile(path))
+            ignoreService.invalidate(project);
+        if (type == EventType.CREATE && isDirectory) {
+            registerCreated(directory, project, directory.getDir().resolve(name));
+        }
+        eventCoalescer.offer(project.getName(), path, type);
+    }
+
+    /**
+     * Resolves the project owning the events of the directory: the project with the longest path containing it, among
+     * the projects watching it.
+     */
+    private Project owner(WatchedDirectory directory) {
+        Project project = projectRepository.findContaining(directory.getDir().toString());
+        if (project != null && directory.isWatchedBy(project))
+            return project;
+        return Iterables.getFirst(directory.getProjects(), null);
+    }
+
+    /**
+     * Registers a directory created below a watched one for every project watching its parent, only the owner is
+     * notified of its content.
+     */
+    private void registerCreated(WatchedDirectory parent, Project owner, Path dir) throws IOException {
+        for (Project project : parent.getProjects()) {
+            registerPath(project, fileSystem.getPath(project.getPath()), dir, project == owner);
+        }
+    }
+
+    /**
+     * Diffs the directory against its last snapshot and offers the differences as events. Returns whether anything
+     * changed.
+     */
+    protected boolean rescan(final WatchedDirectory directory) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return diff(directory);
+        } finally {
+            rescanTime.time(start);
+        }
+    }
+
+    private boolean diff(final WatchedDirectory directory) throws IOException {
+        final Path dir = directory.getDir();
+        final Project project = owner(directory);
+        if (project == null || !Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS))
+            return false;
+        final IgnoreRules ignoreRules = ignoreService.getRules(project);
+        final boolean[] changed = new boolean[1];
+        DirectorySnapshot current = DirectorySnapshot.take(dir);
+        directory.getSnapshot().diff(current, new DirectorySnapshot.DiffListener() {
+            @Override
+            public void onCreated(String name, boolean isDirectory) {
+                changed[0] = true;
+                if (ignoreRules.isIgnored(directory.resolve(project, name), isDirectory))
+                    return;
+                eventCoalescer.offer(project.getName(), directory.resolve(project, name), EventType.CREATE);
+                if (isDirectory) {
+                    try {
+                        registerCreated(directory, project, dir.resolve(name));
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+
+            @Override
+            public void onChanged(String name, boolean isDirectory) {
+                changed[0] = true;
+                if (!isDirectory && !ignoreRules.isIgnored(directory.resolve(project, name), false))
+                    eventCoalescer.offer(project.getName(), directory.resolve(project, name), EventType.CHANGE);
+            }
+
+            @Override
+            public void onDeleted(String name, boolean isDirectory) {
+                changed[0] = true;
+                if (!ignoreRules.isIgnored(directory.resolve(project, name), isDirectory))
+                    eventCoalescer.offer(project.getName(), directory.resolve(project, name), EventType.DELETE);
+            }
+        });
+        directory.setSnapshot(current);
+        return changed[0];
+    }
+
+    private BasicFileAttributes updateSnapshot(WatchedDirectory directory, String name, EventType type) {
+        if (type != EventType.DELETE) {
+            try {
+                Path resourcePath = directory.getDir().resolve(name);
+                BasicFileAttributes attrs = Files.readAttributes(resourcePath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                directory.getSnapshot().update(name, attrs);
+                return attrs;
+            } catch (IOException e) {
+                // deleted since the event was queued, a delete event follows
+            }
+        }
+        directory.getSnapshot().remove(name);
+        return null;
+    }
+
+    /**
+     * Registers the directory and its subdirectories. When {@code notify} is set, everything found below the directory
+     * is offered as created, it may have appeared before the watch was in place.
+     */
+    protected void registerPath(final Project project, final Path projectPath, final Path path, final boolean notify)
+            throws IOException {
+        final IgnoreRules ignoreRules = ignoreService.getRules(project);
+        synchronized (object) {
+            Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (!dir.equals(projectPath) && ignoreRules.isIgnored(projectPath.relativize(dir).toString(), true))
+                        return FileVisitResult.SKIP_SUBTREE;
+                    watchRegistry.register(register(dir), project, dir, DirectorySnapshot.take(dir));
+                    if (notify && !dir.equals(path))
+                        eventCoalescer.offer(project.getName(), projectPath.relativize(dir).toString(), EventType.CREATE);
+                    return super.preVisitDirectory(dir, attrs);
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (notify && !ignoreRules.isIgnored(projectPath.relativize(file).toString(), attrs.isDirectory()))
+                        eventCoalescer.offer(project.getName(), projectPath.relativize(file).toString(), EventType.CREATE);
+                    return super.visitFile(file, attrs);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.codenvy.flux.watcher.fs.service;
+
+import com.codenvy.flux.watcher.core.enums.EventType;
+import com.codenvy.flux.watcher.core.model.Project;
+import com.codenvy.flux.watcher.fs.watcher.WatchRegistry.WatchedDirectory;
+import com.google.common.base.Charsets;
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Linux watcher backend talking to inotify directly instead of going through the JDK {@link java.nio.file.WatchService}.
+ * Events are drained with large batched reads into a reused direct buffer and dispatched on the watcher thread, without
+ * a {@link java.nio.file.WatchKey} per directory or an intermediate event queue. Watches for new subdirectories are added
+ * as soon as their creation is read and a kernel queue overflow triggers a rescan of every watched directory.
+ */
+@Singleton
+public class InotifyWatcherServiceImpl extends AbstractWatcherService<Integer> {
+    public static final String READ_BUFFER_SIZE = "flux.watcher.inotify.bufferSize";
+
+    private static final int IN_MODIFY      = 0x00000002;
+    private static final int IN_ATTRIB      = 0x00000004;
+    private static final int IN_MOVED_FROM  = 0x00000040;
+    private static final int IN_MOVED_TO    = 0x00000080;
+    private static final int IN_CREATE      = 0x00000100;
+    private static final int IN_DELETE      = 0x00000200;
+    private static final int IN_MOVE_SELF   = 0x00000800;
+    private static final int IN_Q_OVERFLOW  = 0x00004000;
+    private static final int IN_IGNORED     = 0x00008000;
+    private static final int IN_ONLYDIR     = 0x01000000;
+    private static final int IN_DONT_FOLLOW = 0x02000000;
+    private static final int IN_EXCL_UNLINK = 0x04000000;
+    private static final int IN_CLOEXEC     = 0x00080000;
+    private static final int POLLIN         = 0x0001;
+    private static final int EINTR          = 4;
+    private static final int ENOSPC         = 28;
+
+    private static final int WATCH_MASK = IN_MODIFY | IN_ATTRIB | IN_MOVED_FROM | IN_MOVED_TO | IN_CREATE | IN_DELETE
+                                          | IN_MOVE_SELF | IN_ONLYDIR | IN_DONT_FOLLOW | IN_EXCL_UNLINK;
+
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+
+    /**
+     * Size of the fixed part of an inotify event: wd, mask, cookie and name length.
+     */
+    private static final int EVENT_HEADER_SIZE = 16;
+
+    @Inject
+    @Named(READ_BUFFER_SIZE)
+    private int readBufferSize;
+
+    private LibC libc;
+
+    private int fd = -1;
+
+    @Inject
+    public void init() {
+        try {
+            libc = (LibC)Native.loadLibrary("c", LibC.class);
+            fd = libc.inotify_init1(IN_CLOEXEC);
+            if (fd < 0)
+                throw new IOException("inotify_init1 failed, errno " + Native.getLastError());
+            startAsync();
+        } catch (IOException | UnsatisfiedLinkError e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    protected void run() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(readBufferSize).order(ByteOrder.nativeOrder());
+        ByteBuffer pollFd = ByteBuffer.allocateDirect(8).order(ByteOrder.nativeOrder());
+        byte[] name = new byte[256];
+        while (isRunning()) {
+            pollFd.putInt(0, fd).putShort(4, (short)POLLIN).putShort(6, (short)0);
+            int ready = libc.poll(pollFd, 1, POLL_TIMEOUT_MILLIS);
+            if (ready <= 0)
+                continue;
+            int read = libc.read(fd, buffer, new NativeLong(buffer.capacity())).intValue();
+            if (read < 0) {
+                if (Native.getLastError() != EINTR)
+                    throw new IOException("inotify read failed, errno " + Native.getLastError());
+                continue;
+            }
+            int offset = 0;
+            while (offset + EVENT_HEADER_SIZE <= read) {
+                int wd = buffer.getInt(offset);
+                int mask = buffer.getInt(offset + 4);
+                int length = buffer.getInt(offset + 12);
+                int nameLength = 0;
+                while (nameLength < length && buffer.get(offset + EVENT_HEADER_SIZE + nameLength) != 0) {
+                    if (nameLength == name.length)
+                        name = Arrays.copyOf(name, name.length * 2);
+                    name[nameLength] = buffer.get(offset + EVENT_HEADER_SIZE + nameLength);
+                    nameLength++;
+                }
+                dispatch(wd, mask, nameLength == 0 ? null : new String(name, 0, nameLength, Charsets.UTF_8));
+                offset += EVENT_HEADER_SIZE + length;
+            }
+        }
+    }
+
+    @Override
+    protected void shutDown() throws Exception {
+        if (fd >= 0)
+            libc.close(fd);
+    }
+
+    /**
+     * Fails at once when inotify could not be initialized, instead of leaving the project unwatched.
+     */
+    @Override
+    public void watch(Project project) throws IOException {
+        if (fd < 0)
+            throw new IOException("inotify is not available, bind WatcherServiceImpl or PollingWatcherServiceImpl instead");
+        super.watch(project);
+    }
+
+    @Override
+    protected Integer register(Path dir) throws IOException {
+        int wd = libc.inotify_add_watch(fd, dir.toString(), WATCH_MASK);
+        if (wd < 0) {
+            int errno = Native.getLastError();
+            if (errno == ENOSPC)
+                throw new IOException("inotify watch limit reached while watching " + dir
+                                      + ", raise fs.inotify.max_user_watches or use the polling backend");
+            throw new IOException("inotify_add_watch failed for " + dir + ", errno " + errno);
+        }
+        return wd;
+    }
+
+    @Override
+    protected void cancel(Integer wd) {
+        libc.inotify_rm_watch(fd, wd);
+    }
+
+    private void dispatch(int wd, int mask, String name) throws IOException {
+        if ((mask & IN_Q_OVERFLOW) != 0) {
+            for (WatchedDirectory directory : watchRegistry.asMap().values()) {
+                rescan(directory);
+            }
+            return;
+        }
+        if ((mask & IN_IGNORED) != 0) {
+            watchRegistry.remove(wd);
+            return;
+        }
+        WatchedDirectory directory = watchRegistry.get(wd);
+        if (directory == null)
+            return;
+        if ((mask & IN_MOVE_SELF) != 0) {
+            onMoved(wd, directory);
+            return;
+        }
+        if (name == null)
+            return;
+        if ((mask & (IN_CREATE | IN_MOVED_TO)) != 0) {
+            onEvent(directory, name, EventType.CREATE);
+        } else if ((mask & (IN_DELETE | IN_MOVED_FROM)) != 0) {
+            onEvent(directory, name, EventType.DELETE);
+        } else if ((mask & (IN_MODIFY | IN_ATTRIB)) != 0) {
+            onEvent(directory, name, EventType.CHANGE);
+        }
+    }
+
+    /**
+     * A directory moved inside the project was already registered again under its new path when its parent reported
+     * it. Anything still registered under a path that is gone was moved out of the project and stops being watched.
+     */
+    private void onMoved(int wd, WatchedDirectory directory) {
+        Path dir = directory.getDir();
+        if (Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS))
+            return;
+        synchronized (object) {
+            for (Map.Entry<Integer, WatchedDirectory> entry : watchRegistry.asMap().entrySet()) {
+                if (entry.getValue().getDir().startsWith(dir)) {
+                    watchRegistry.remove(entry.getKey());
+                    cancel(entry.getKey());
+                }
+            }
+        }
+    }
+
+    interface LibC extends Library {
+        int inotify_init1(int flags);
+
+        int inotify_add_watch(int fd, String path, int mask);
+
+        int inotify_rm_watch(int fd, int wd);
+
+        int poll(ByteBuffer fds, int nfds, int timeout);
+
+        NativeLong read(int fd, ByteBuffer buffer, NativeLong count);
+
+        int close(int fd);
+    }
+}
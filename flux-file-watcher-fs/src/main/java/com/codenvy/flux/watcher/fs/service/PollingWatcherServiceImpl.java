@@ -0,0 +1,133 @@
+package com.codenvy.flux.watcher.fs.service;
+
+import com.codenvy.flux.watcher.fs.watcher.WatchRegistry.WatchedDirectory;
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watcher backend for file systems without usable change notifications (NFS, some overlay mounts) or when the inotify
+ * watch limit is reached. Watched directories are polled round-robin and diffed against their snapshots. A poll cycle
+ * stops once its time budget is spent and the next cycle resumes where it stopped. The interval between cycles is
+ * reset to the minimum when something changed and doubles up to the maximum while nothing does.
+ */
+@Singleton
+public class PollingWatcherServiceImpl extends AbstractWatcherService<Path> {
+    public static final String MIN_INTERVAL = "flux.watcher.poll.minInterval";
+    public static final String MAX_INTERVAL = "flux.watcher.poll.maxInterval";
+    public static final String CYCLE_BUDGET = "flux.watcher.poll.cycleBudget";
+
+    /**
+     * The directories in polling order. Guarded by {@code queuedDirs}, like {@link #polling}.
+     */
+    private final Queue<Path> pollQueue = Queues.newArrayDeque();
+
+    /**
+     * The registered directories, in the poll queue or being polled.
+     */
+    private final Set<Path> queuedDirs = Sets.newHashSet();
+
+    /**
+     * The directory taken off the poll queue by the current poll, put back once polled unless it was cancelled.
+     */
+    private Path polling;
+
+    @Inject
+    @Named(MIN_INTERVAL)
+    private long minInterval;
+
+    @Inject
+    @Named(MAX_INTERVAL)
+    private long maxInterval;
+
+    @Inject
+    @Named(CYCLE_BUDGET)
+    private long cycleBudget;
+
+    @Inject
+    public void init() {
+        startAsync();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        long interval = minInterval;
+        while (isRunning()) {
+            boolean changed = poll();
+            interval = changed ? minInterval : Math.min(interval * 2, maxInterval);
+            TimeUnit.MILLISECONDS.sleep(interval);
+        }
+    }
+
+    /**
+     * Rescans watched directories until every directory was visited once or the cycle budget is spent, returns whether
+     * anything changed or the cycle was cut short.
+     */
+    private boolean poll() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cycleBudget);
+        boolean changed = false;
+        int remaining;
+        synchronized (queuedDirs) {
+            remaining = pollQueue.size();
+        }
+        while (remaining > 0) {
+            if (System.nanoTime() >= deadline)
+                return true;
+            remaining--;
+            Path dir;
+            synchronized (queuedDirs) {
+                dir = polling = pollQueue.poll();
+            }
+            if (dir == null)
+                break;
+            WatchedDirectory directory = watchRegistry.get(dir);
+            if (directory == null || !Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+                watchRegistry.remove(dir);
+                synchronized (queuedDirs) {
+                    queuedDirs.remove(dir);
+                    polling = null;
+                }
+                continue;
+            }
+            try {
+                changed |= rescan(directory);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            synchronized (queuedDirs) {
+                if (queuedDirs.contains(dir))
+                    pollQueue.offer(dir);
+                polling = null;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    protected Path register(Path dir) throws IOException {
+        synchronized (queuedDirs) {
+            // a directory being polled is put back by the poll
+            if (queuedDirs.add(dir) && !dir.equals(polling))
+                pollQueue.offer(dir);
+        }
+        return dir;
+    }
+
+    @Override
+    protected void cancel(Path dir) {
+        synchronized (queuedDirs) {
+            if (queuedDirs.remove(dir))
+                pollQueue.remove(dir);
+        }
+    }
+}
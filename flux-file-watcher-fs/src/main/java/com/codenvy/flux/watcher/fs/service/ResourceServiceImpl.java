@@ -1,18 +1,28 @@
 package com.codenvy.flux.watcher.fs.service;
 
+import com.codenvy.flux.watcher.core.metrics.Counter;
+import com.codenvy.flux.watcher.core.metrics.Histogram;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
 import com.codenvy.flux.watcher.core.model.Project;
 import com.codenvy.flux.watcher.core.model.Resource;
 import com.codenvy.flux.watcher.core.repository.ProjectRepository;
 import com.codenvy.flux.watcher.core.service.ResourceService;
+import com.codenvy.flux.watcher.fs.ignore.IgnoreRules;
+import com.codenvy.flux.watcher.fs.ignore.IgnoreService;
+import com.codenvy.flux.watcher.fs.index.ResourceIndex;
+import com.codenvy.flux.watcher.fs.io.AtomicFileWriter;
+import com.codenvy.flux.watcher.fs.io.ContentHasher;
+import com.codenvy.flux.watcher.fs.scanner.ProjectScanner;
+import com.codenvy.flux.watcher.fs.watcher.ChangeGate;
+import com.codenvy.flux.watcher.fs.watcher.EchoSuppressor;
 import com.google.common.collect.Sets;
-import com.google.common.hash.Hashing;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.Arrays;
 import java.util.Set;
 
 import static com.codenvy.flux.watcher.core.enums.ResourceType.FILE;
@@ -21,107 +31,247 @@ import static com.codenvy.flux.watcher.core.enums.ResourceType.FOLDER;
 @Singleton
 public class ResourceServiceImpl implements ResourceService {
 
+    public static final String MAX_INLINE_SIZE = "flux.resource.maxInlineSize";
+
     @Inject
     private FileSystem fileSystem;
 
     @Inject
     private ProjectRepository projectRepository;
 
+    @Inject
+    private ResourceIndex resourceIndex;
+
+    @Inject
+    private ProjectScanner projectScanner;
+
+    @Inject
+    private IgnoreService ignoreService;
+
+    @Inject
+    private EchoSuppressor echoSuppressor;
+
+    @Inject
+    private ChangeGate changeGate;
+
+    @Inject
+    private MetricsRegistry metrics;
+
+    @Inject
+    @Named(MAX_INLINE_SIZE)
+    private long maxInlineSize;
+
+    private Histogram findAllTime;
+
+    private Histogram findTime;
+
+    private Histogram saveTime;
+
+    private Histogram deleteTime;
+
+    private Counter bytesRead;
+
+    private Counter bytesWritten;
+
+    private Counter bytesHashed;
+
+    @Inject
+    public void init() {
+        findAllTime = metrics.histogram("resource.findAllTime");
+        findTime = metrics.histogram("resource.findTime");
+        saveTime = metrics.histogram("resource.saveTime");
+        deleteTime = metrics.histogram("resource.deleteTime");
+        bytesRead = metrics.counter("resource.bytesRead");
+        bytesWritten = metrics.counter("resource.bytesWritten");
+        bytesHashed = metrics.counter("resource.bytesHashed");
+    }
+
     @Override
     public Set<Resource> findAll(Project project) {
-        Project localProject = projectRepository.findByName(project.getName());
-        Path projectPath = fileSystem.getPath(localProject.getPath());
-        Set<Resource> resources = Sets.newHashSet();
+        long start = System.nanoTime();
         try {
-            Files.walkFileTree(projectPath, new SimpleFileVisitor<Path>(){
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    resources.add(getResource(projectPath, dir, attrs).setProjectName(project.getName()));
-                    return super.preVisitDirectory(dir, attrs);
-                }
-
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    resources.add(getResource(projectPath, file, attrs).setProjectName(project.getName()));
-                    return super.visitFile(file, attrs);
-                }
-            });
-        } catch (IOException e) {
-            e.printStackTrace();
+            Project localProject = projectRepository.findByName(project.getName());
+            Path projectPath = fileSystem.getPath(localProject.getPath());
+            Set<Resource> resources = Sets.newConcurrentHashSet();
+            Set<String> paths = Sets.newConcurrentHashSet();
+            IgnoreRules ignoreRules = ignoreService.getRules(localProject);
+            try {
+                projectScanner.scan(projectPath, new ProjectScanner.Visitor() {
+                    @Override
+                    public boolean visit(Path path, BasicFileAttributes attrs) throws IOException {
+                        String relativePath = projectPath.relativize(path).toString();
+                        if (!relativePath.isEmpty() && ignoreRules.isIgnored(relativePath, attrs.isDirectory()))
+                            return false;
+                        Resource resource = getResource(projectPath, path, attrs, false).setProjectName(project.getName());
+                        resources.add(resource);
+                        if (!attrs.isDirectory())
+                            paths.add(resource.getPath());
+                        return true;
+                    }
+                });
+                resourceIndex.retainAll(projectPath, paths);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            resourceIndex.flush(projectPath);
+            return resources;
+        } finally {
+            findAllTime.time(start);
         }
-        return resources;
     }
 
     @Override
     public Resource find(Resource resource) {
-        Project project = projectRepository.findByName(resource.getProjectName());
-        Path projectPath = fileSystem.getPath(project.getPath());
-        Path resourcePath = projectPath.resolve(resource.getPath());
+        return find(resource, true);
+    }
+
+    @Override
+    public Resource find(Resource resource, boolean withContent) {
+        long start = System.nanoTime();
         try {
-            BasicFileAttributes attrs = Files.readAttributes(resourcePath, BasicFileAttributes.class);
-            return getResource(projectPath, resourcePath, attrs).setProjectName(project.getName());
-        } catch (IOException e) {
-            return null;
+            Project project = projectRepository.findByName(resource.getProjectName());
+            Path projectPath = fileSystem.getPath(project.getPath());
+            Path resourcePath = projectPath.resolve(resource.getPath());
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(resourcePath, BasicFileAttributes.class);
+                return getResource(projectPath, resourcePath, attrs, withContent).setProjectName(project.getName());
+            } catch (IOException e) {
+                return null;
+            }
+        } finally {
+            findTime.time(start);
         }
     }
 
     @Override
     public boolean save(Resource resource) {
-        Path path = fileSystem.getPath(projectRepository.findByName(resource.getProjectName()).getPath());
-        Path resourcePath = path.resolve(resource.getPath());
+        long start = System.nanoTime();
         try {
-            switch (resource.getType()) {
-                case FILE:
-                    if (Files.exists(resourcePath)) {
-                        if (!Arrays.equals(Files.readAllBytes(resourcePath), resource.getContent())) {
-                            Files.write(resourcePath, resource.getContent());
+            Path path = fileSystem.getPath(projectRepository.findByName(resource.getProjectName()).getPath());
+            Path resourcePath = path.resolve(resource.getPath());
+            try {
+                switch (resource.getType()) {
+                    case FILE:
+                        BasicFileAttributes attrs = readAttributes(resourcePath);
+                        byte[] content = resource.getContent();
+                        if (content == null) {
+                            if (attrs == null) {
+                                String emptyHash = ContentHasher.hash(new byte[0]);
+                                echoSuppressor.recordWrite(resource.getProjectName(), resource.getPath(), emptyHash);
+                                changeGate.record(resource.getProjectName(), resource.getPath(), emptyHash);
+                                Files.createFile(resourcePath);
+                            }
+                            break;
                         }
-                    } else {
-                        Files.createFile(resourcePath);
-                    }
-                    break;
-                case FOLDER:
-                    Files.createDirectory(resourcePath);
-                    break;
+                        String hash = ContentHasher.hash(content);
+                        bytesHashed.add(content.length);
+                        // the sender has this content whether or not it has to be written
+                        changeGate.record(resource.getProjectName(), resource.getPath(), hash);
+                        if (attrs != null && attrs.size() == content.length && hash.equals(localHash(path, resourcePath, attrs)))
+                            break;
+                        echoSuppressor.recordWrite(resource.getProjectName(), resource.getPath(), hash);
+                        AtomicFileWriter.write(resourcePath, content);
+                        bytesWritten.add(content.length);
+                        resourceIndex.put(path, resource.getPath(), Files.readAttributes(resourcePath, BasicFileAttributes.class), hash);
+                        break;
+                    case FOLDER:
+                        echoSuppressor.recordWrite(resource.getProjectName(), resource.getPath(), "0");
+                        changeGate.record(resource.getProjectName(), resource.getPath(), "0");
+                        Files.createDirectory(resourcePath);
+                        break;
+                }
+                return true;
+            } catch (IOException e) {
+                echoSuppressor.forget(resource.getProjectName(), resource.getPath());
+                return false;
             }
-            return true;
-        } catch (IOException e) {
-            return false;
+        } finally {
+            saveTime.time(start);
         }
     }
 
     @Override
     public boolean delete(Resource resource) {
-        Path path = fileSystem.getPath(projectRepository.findByName(resource.getProjectName()).getPath());
+        long start = System.nanoTime();
         try {
-            Files.walkFileTree(path.resolve(resource.getPath()), new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    Files.delete(file);
-                    return super.visitFile(file, attrs);
-                }
+            final Path path = fileSystem.getPath(projectRepository.findByName(resource.getProjectName()).getPath());
+            final String projectName = resource.getProjectName();
+            resourceIndex.remove(path, resource.getPath());
+            try {
+                Files.walkFileTree(path.resolve(resource.getPath()), new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        delete(file);
+                        return super.visitFile(file, attrs);
+                    }
 
-                @Override
-                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                    Files.delete(dir);
-                    return super.postVisitDirectory(dir, exc);
-                }
-            });
-        } catch (IOException e) {
-            return false;
+                    @Override
+                    public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                        delete(dir);
+                        return super.postVisitDirectory(dir, exc);
+                    }
+
+                    private void delete(Path file) throws IOException {
+                        String relative = path.relativize(file).toString();
+                        echoSuppressor.recordDelete(projectName, relative);
+                        changeGate.forget(projectName, relative);
+                        try {
+                            Files.delete(file);
+                        } catch (IOException e) {
+                            echoSuppressor.forget(projectName, relative);
+                            throw e;
+                        }
+                    }
+                });
+            } catch (IOException e) {
+                return false;
+            }
+            return true;
+        } finally {
+            deleteTime.time(start);
+        }
+    }
+
+    private BasicFileAttributes readAttributes(Path resourcePath) throws IOException {
+        try {
+            return Files.readAttributes(resourcePath, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
         }
-        return true;
     }
 
-    private Resource getResource(Path projectPath, Path resourcePath, BasicFileAttributes attrs) throws IOException {
+    /**
+     * Returns the indexed hash of the file, hashing it only when its stat changed since it was indexed.
+     */
+    private String localHash(Path projectPath, Path resourcePath, BasicFileAttributes attrs) throws IOException {
+        String path = projectPath.relativize(resourcePath).toString();
+        String hash = resourceIndex.getHash(projectPath, path, attrs);
+        if (hash == null) {
+            hash = ContentHasher.hash(resourcePath);
+            bytesHashed.add(attrs.size());
+            resourceIndex.put(projectPath, path, attrs, hash);
+        }
+        return hash;
+    }
+
+    private Resource getResource(Path projectPath, Path resourcePath, BasicFileAttributes attrs, boolean withContent)
+            throws IOException {
         String path = projectPath.relativize(resourcePath).toString();
         Long timestamp = attrs.lastAccessTime().toMillis();
         Resource resource = new Resource().setPath(path).setTimestamp(timestamp);
         if (attrs.isDirectory())
             return resource.setHash("0").setType(FOLDER);
         else {
-            byte[] content = Files.readAllBytes(resourcePath);
-            return resource.setContent(content).setHash(Hashing.sha1().hashBytes(content).toString()).setType(FILE);
+            byte[] content = withContent && attrs.size() <= maxInlineSize ? Files.readAllBytes(resourcePath) : null;
+            if (content != null)
+                bytesRead.add(content.length);
+            String hash = resourceIndex.getHash(projectPath, path, attrs);
+            if (hash == null) {
+                hash = content != null ? ContentHasher.hash(content) : ContentHasher.hash(resourcePath);
+                bytesHashed.add(attrs.size());
+                resourceIndex.put(projectPath, path, attrs, hash);
+            }
+            return resource.setContent(content).setHash(hash).setType(FILE);
         }
     }
 }
\ No newline at end of file
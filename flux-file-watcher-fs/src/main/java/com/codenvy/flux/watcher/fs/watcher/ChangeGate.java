@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs.watcher;
+
+import com.codenvy.flux.watcher.core.metrics.Counter;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
+import com.google.common.collect.Maps;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hash of the content each resource was last broadcast or written with, so a local change leaving the content as the
+ * remotes already have it (a touch, a metadata update, an editor rewriting identical bytes) is not broadcast again. The
+ * hash compared comes from the resource index, which only reads files whose size or modification time changed since
+ * they were last hashed.
+ */
+@Singleton
+public class ChangeGate {
+    private final ConcurrentMap<String, ConcurrentMap<String, String>> projectHashes = Maps.newConcurrentMap();
+
+    private Counter unchangedCount;
+
+    @Inject
+    private MetricsRegistry metrics;
+
+    @Inject
+    public void init() {
+        unchangedCount = metrics.counter("watcher.change.unchanged");
+    }
+
+    public void record(String projectName, String path, String hash) {
+        if (hash == null)
+            return;
+        ConcurrentMap<String, String> hashes = projectHashes.get(projectName);
+        if (hashes == null) {
+            ConcurrentMap<String, String> created = Maps.newConcurrentMap();
+            hashes = projectHashes.putIfAbsent(projectName, created);
+            if (hashes == null)
+                hashes = created;
+        }
+        hashes.put(path, hash);
+    }
+
+    public void forget(String projectName, String path) {
+        ConcurrentMap<String, String> hashes = projectHashes.get(projectName);
+        if (hashes != null)
+            hashes.remove(path);
+    }
+
+    public void forget(String projectName) {
+        projectHashes.remove(projectName);
+    }
+
+    /**
+     * Returns whether the resource, now having the given hash, still has the content it was last sent or written with.
+     */
+    public boolean isUnchanged(String projectName, String path, String hash) {
+        ConcurrentMap<String, String> hashes = projectHashes.get(projectName);
+        boolean unchanged = hash != null && hashes != null && hash.equals(hashes.get(path));
+        if (unchanged)
+            unchangedCount.inc();
+        return unchanged;
+    }
+
+    public long getUnchangedCount() {
+        return unchangedCount.getCount();
+    }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs.watcher;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Last known stat (size, modification time and file key) of the direct children of a watched directory, used to find
+ * out what changed in the directory when its events were lost.
+ */
+public class DirectorySnapshot {
+    private final Path dir;
+
+    private final ConcurrentMap<String, Entry> entries = Maps.newConcurrentMap();
+
+    private DirectorySnapshot(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Lists the given directory and records the stat of each of its children.
+     */
+    public static DirectorySnapshot take(Path dir) throws IOException {
+        DirectorySnapshot snapshot = new DirectorySnapshot(dir);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                try {
+                    snapshot.update(child.getFileName().toString(),
+                                    Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+                } catch (NoSuchFileException e) {
+                    // deleted while listing
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    public boolean isDirectory(String name) {
+        Entry entry = entries.get(name);
+        return entry != null && entry.directory;
+    }
+
+    public void update(String name, BasicFileAttributes attrs) {
+        entries.put(name, new Entry(attrs));
+    }
+
+    public void remove(String name) {
+        entries.remove(name);
+    }
+
+    /**
+     * Reports to the listener every child created, changed or deleted between this snapshot and the given newer one.
+     */
+    public void diff(DirectorySnapshot newer, DiffListener listener) {
+        for (Map.Entry<String, Entry> entry : newer.entries.entrySet()) {
+            Entry previous = entries.get(entry.getKey());
+            Entry current = entry.getValue();
+            if (previous == null || previous.directory != current.directory) {
+                if (previous != null)
+                    listener.onDeleted(entry.getKey(), previous.directory);
+                listener.onCreated(entry.getKey(), current.directory);
+            } else if (!previous.equals(current)) {
+                listener.onChanged(entry.getKey(), current.directory);
+            }
+        }
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (!newer.entries.containsKey(entry.getKey()))
+                listener.onDeleted(entry.getKey(), entry.getValue().directory);
+        }
+    }
+
+    public interface DiffListener {
+        void onCreated(String name, boolean directory);
+
+        void onChanged(String name, boolean directory);
+
+        void onDeleted(String name, boolean directory);
+    }
+
+    private static class Entry {
+        private final long size;
+
+        private final long lastModified;
+
+        private final Object fileKey;
+
+        private final boolean directory;
+
+        private Entry(BasicFileAttributes attrs) {
+            this.size = attrs.size();
+            this.lastModified = attrs.lastModifiedTime().toMillis();
+            this.fileKey = attrs.fileKey();
+            this.directory = attrs.isDirectory();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Entry))
+                return false;
+            Entry entry = (Entry) o;
+            return size == entry.size
+                   && lastModified == entry.lastModified
+                   && directory == entry.directory
+                   && Objects.equal(fileKey, entry.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(size, lastModified, fileKey, directory);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs.watcher;
+
+import com.codenvy.flux.watcher.core.enums.EventType;
+import com.codenvy.flux.watcher.core.metrics.Counter;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers for a short while what was just written to disk on behalf of a remote, so the watch events of those writes
+ * are not sent back to it. Writes are keyed by resource path and content hash: an event is an echo when the resource
+ * now has the content that was written, a local edit made in between has another hash and still goes through. A write
+ * suppresses one event only, and is forgotten when it fails.
+ */
+@Singleton
+public class EchoSuppressor {
+    public static final String WINDOW = "flux.watcher.echoWindow";
+
+    private static final String DELETED = "";
+
+    private Cache<String, String> writes;
+
+    private Counter recordedCount;
+
+    private Counter suppressedCount;
+
+    @Inject
+    @Named(WINDOW)
+    private long window;
+
+    @Inject
+    private MetricsRegistry metrics;
+
+    @Inject
+    public void init() {
+        writes = CacheBuilder.newBuilder().expireAfterWrite(Math.max(window, 0), TimeUnit.MILLISECONDS).build();
+        recordedCount = metrics.counter("watcher.echo.recorded");
+        suppressedCount = metrics.counter("watcher.echo.suppressed");
+    }
+
+    /**
+     * Records that the given content was written to the resource, the hash of a folder is {@code "0"}.
+     */
+    public void recordWrite(String projectName, String path, String hash) {
+        writes.put(key(projectName, path), hash);
+        recordedCount.inc();
+    }
+
+    public void recordDelete(String projectName, String path) {
+        writes.put(key(projectName, path), DELETED);
+        recordedCount.inc();
+    }
+
+    /**
+     * Forgets the write recorded for the resource, to be called when the write failed.
+     */
+    public void forget(String projectName, String path) {
+        writes.invalidate(key(projectName, path));
+    }
+
+    /**
+     * Returns whether an event about the resource, now having the given hash, echoes a recent write. The write is
+     * forgotten once its echo is found, later events about the resource go through.
+     */
+    public boolean isEcho(String projectName, String path, EventType type, String hash) {
+        String key = key(projectName, path);
+        String written = writes.getIfPresent(key);
+        if (written == null)
+            return false;
+        boolean echo = type == EventType.DELETE ? DELETED.equals(written) : written.equals(hash);
+        if (echo) {
+            writes.asMap().remove(key, written);
+            suppressedCount.inc();
+        }
+        return echo;
+    }
+
+    public long getSuppressedCount() {
+        return suppressedCount.getCount();
+    }
+
+    private static String key(String projectName, String path) {
+        return projectName + '\u0000' + path;
+    }
+}
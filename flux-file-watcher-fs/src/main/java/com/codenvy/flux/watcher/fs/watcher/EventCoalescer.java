@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs.watcher;
+
+import com.codenvy.flux.watcher.core.enums.EventType;
+import com.codenvy.flux.watcher.core.event.LocalResourceEvent;
+import com.codenvy.flux.watcher.core.metrics.Gauge;
+import com.codenvy.flux.watcher.core.metrics.MetricsRegistry;
+import com.codenvy.flux.watcher.core.model.Resource;
+import com.codenvy.flux.watcher.core.service.ResourceService;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers raw watch events per resource and posts a single {@link LocalResourceEvent} once the resource has been quiet
+ * for the configured window. Only the state before the first and after the last buffered event matters: a create
+ * followed by a delete is dropped, many modifications become one change and a delete followed by a create becomes a
+ * change. A resource that keeps changing is flushed anyway after ten windows. Events echoing a write made on behalf
+ * of a remote are dropped, see {@link EchoSuppressor}, and so are changes leaving the content as it was last sent, see
+ * {@link ChangeGate}.
+ */
+@Singleton
+public class EventCoalescer {
+    public static final String QUIET_WINDOW = "flux.watcher.quietWindow";
+
+    private static final int MAX_DELAY_WINDOWS = 10;
+
+    private final Map<String, PendingEvent> pendingEvents = Maps.newLinkedHashMap();
+
+    private final AtomicLong receivedCount = new AtomicLong();
+
+    private final AtomicLong emittedCount = new AtomicLong();
+
+    private final AtomicLong collapsedCount = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    @Inject
+    @Named(QUIET_WINDOW)
+    private long quietWindow;
+
+    @Inject
+    private ResourceService resourceService;
+
+    @Inject
+    private EventBus eventBus;
+
+    @Inject
+    private MetricsRegistry metrics;
+
+    @Inject
+    private EchoSuppressor echoSuppressor;
+
+    @Inject
+    private ChangeGate changeGate;
+
+    @Inject
+    public void init() {
+        metrics.gauge("coalescer.received", new Gauge() {
+            @Override
+            public double getValue() {
+                return getReceivedCount();
+            }
+        });
+        metrics.gauge("coalescer.emitted", new Gauge() {
+            @Override
+            public double getValue() {
+                return getEmittedCount();
+            }
+        });
+        metrics.gauge("coalescer.collapsed", new Gauge() {
+            @Override
+            public double getValue() {
+                return getCollapsedCount();
+            }
+        });
+        metrics.gauge("coalescer.pending", new Gauge() {
+            @Override
+            public double getValue() {
+                synchronized (pendingEvents) {
+                    return pendingEvents.size();
+                }
+            }
+        });
+        if (quietWindow <= 0)
+            return;
+        long period = Math.max(quietWindow / 2, 10);
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("flux-coalescer-%d")
+                                                                                         .setDaemon(true)
+                                                                                         .build());
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flush(false);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records a raw event for the given resource. With a quiet window of zero the event is posted right away.
+     */
+    public void offer(String projectName, String path, EventType type) {
+        receivedCount.incrementAndGet();
+        if (scheduler == null) {
+            emit(new PendingEvent(projectName, path, type, System.currentTimeMillis()));
+            return;
+        }
+        String key = projectName + '\u0000' + path;
+        long now = System.currentTimeMillis();
+        synchronized (pendingEvents) {
+            PendingEvent pendingEvent = pendingEvents.get(key);
+            if (pendingEvent == null) {
+                pendingEvents.put(key, new PendingEvent(projectName, path, type, now));
+            } else {
+                pendingEvent.merge(type, now);
+                collapsedCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Posts the buffered events, only those whose window elapsed unless {@code force} is set.
+     */
+    public void flush(boolean force) {
+        List<PendingEvent> dueEvents = Lists.newArrayList();
+        long now = System.currentTimeMillis();
+        synchronized (pendingEvents) {
+            Iterator<PendingEvent> iterator = pendingEvents.values().iterator();
+            while (iterator.hasNext()) {
+                PendingEvent pendingEvent = iterator.next();
+                if (force || pendingEvent.isDue(now)) {
+                    dueEvents.add(pendingEvent);
+                    iterator.remove();
+                }
+            }
+        }
+        for (PendingEvent dueEvent : dueEvents) {
+            emit(dueEvent);
+        }
+    }
+
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    public long getEmittedCount() {
+        return emittedCount.get();
+    }
+
+    public long getCollapsedCount() {
+        return collapsedCount.get();
+    }
+
+    private void emit(PendingEvent pendingEvent) {
+        EventType type = pendingEvent.coalescedType();
+        if (type == null) {
+            collapsedCount.incrementAndGet();
+            return;
+        }
+        Resource resource = new Resource(pendingEvent.path, pendingEvent.projectName);
+        if (type != EventType.DELETE) {
+            Resource localResource = resourceService.find(resource, false);
+            if (localResource == null) {
+                if (!pendingEvent.existedBefore) {
+                    collapsedCount.incrementAndGet();
+                    return;
+                }
+                type = EventType.DELETE;
+            } else {
+                resource = localResource;
+            }
+        }
+        if (echoSuppressor.isEcho(pendingEvent.projectName, pendingEvent.path, type, resource.getHash()))
+            return;
+        if (type == EventType.DELETE) {
+            changeGate.forget(pendingEvent.projectName, pendingEvent.path);
+        } else {
+            // a create is gated too, a file replaced by a rename may be reported as created
+            if (changeGate.isUnchanged(pendingEvent.projectName, pendingEvent.path, resource.getHash()))
+                return;
+            changeGate.record(pendingEvent.projectName, pendingEvent.path, resource.getHash());
+        }
+        if (type == EventType.DELETE)
+            resource.setTimestamp(System.currentTimeMillis());
+        emittedCount.incrementAndGet();
+        eventBus.post(new LocalResourceEvent(type, resource));
+    }
+
+    private class PendingEvent {
+        private final String projectName;
+
+        private final String path;
+
+        private final boolean existedBefore;
+
+        private final long firstEventTime;
+
+        private boolean existsAfter;
+
+        private long lastEventTime;
+
+        private PendingEvent(String projectName, String path, EventType type, long time) {
+            this.projectName = projectName;
+            this.path = path;
+            this.existedBefore = type != EventType.CREATE;
+            this.firstEventTime = time;
+            merge(type, time);
+        }
+
+        private void merge(EventType type, long time) {
+            existsAfter = type != EventType.DELETE;
+            lastEventTime = time;
+        }
+
+        private boolean isDue(long now) {
+            return now - lastEventTime >= quietWindow || now - firstEventTime >= quietWindow * MAX_DELAY_WINDOWS;
+        }
+
+        private EventType coalescedType() {
+            if (existedBefore)
+                return existsAfter ? EventType.CHANGE : EventType.DELETE;
+            return existsAfter ? EventType.CREATE : null;
+        }
+    }
+}
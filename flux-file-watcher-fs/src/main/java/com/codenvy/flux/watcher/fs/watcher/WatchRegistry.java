@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs.watcher;
+
+import com.codenvy.flux.watcher.core.model.Project;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps the watch keys of a watcher backend to the directory they were registered for and the projects watching it, so
+ * events are resolved without walking the file system and a project is unwatched by cancelling its keys. Nested
+ * projects get the same key for a directory they share, the key is only handed back for cancelling once no project
+ * uses it anymore.
+ *
+ * @param <K> the watch key type of the backend.
+ */
+public class WatchRegistry<K> {
+    private final ConcurrentMap<K, WatchedDirectory> directories = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<String, Set<K>> projectKeys = Maps.newConcurrentMap();
+
+    /**
+     * Records that the given project watches the directory of the key. Registration and removal are serialized by the
+     * caller.
+     */
+    public WatchedDirectory register(K key, Project project, Path dir, DirectorySnapshot snapshot) {
+        WatchedDirectory directory = directories.get(key);
+        if (directory == null || !directory.getDir().equals(dir)) {
+            directory = new WatchedDirectory(dir, snapshot);
+            directories.put(key, directory);
+        }
+        directory.projects.put(project.getName(), project);
+        Set<K> keys = projectKeys.get(project.getName());
+        if (keys == null) {
+            Set<K> newKeys = Sets.newConcurrentHashSet();
+            keys = projectKeys.putIfAbsent(project.getName(), newKeys);
+            if (keys == null)
+                keys = newKeys;
+        }
+        keys.add(key);
+        return directory;
+    }
+
+    public WatchedDirectory get(K key) {
+        return directories.get(key);
+    }
+
+    /**
+     * Forgets the key for every project watching it, e.g. when the backend reports it invalid.
+     */
+    public WatchedDirectory remove(K key) {
+        WatchedDirectory directory = directories.remove(key);
+        if (directory != null) {
+            for (String projectName : directory.projects.keySet()) {
+                Set<K> keys = projectKeys.get(projectName);
+                if (keys != null)
+                    keys.remove(key);
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * Forgets all the keys of the given project and returns those no other project uses, so the caller can cancel
+     * them.
+     */
+    public Set<K> remove(Project project) {
+        Set<K> keys = projectKeys.remove(project.getName());
+        if (keys == null)
+            return ImmutableSet.of();
+        Set<K> unused = Sets.newHashSet();
+        for (K key : keys) {
+            WatchedDirectory directory = directories.get(key);
+            if (directory == null)
+                continue;
+            directory.projects.remove(project.getName());
+            if (directory.projects.isEmpty()) {
+                directories.remove(key);
+                unused.add(key);
+            }
+        }
+        return unused;
+    }
+
+    /**
+     * Returns a live, unmodifiable view of the watched directories by key.
+     */
+    public Map<K, WatchedDirectory> asMap() {
+        return Collections.unmodifiableMap(directories);
+    }
+
+    public int size() {
+        return directories.size();
+    }
+
+    public static class WatchedDirectory {
+        private final Path dir;
+
+        private final ConcurrentMap<String, Project> projects = Maps.newConcurrentMap();
+
+        private volatile DirectorySnapshot snapshot;
+
+        private WatchedDirectory(Path dir, DirectorySnapshot snapshot) {
+            this.dir = dir;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Returns the projects watching this directory, more than one when projects are nested.
+         */
+        public Collection<Project> getProjects() {
+            return Collections.unmodifiableCollection(projects.values());
+        }
+
+        public boolean isWatchedBy(Project project) {
+            return projects.containsKey(project.getName());
+        }
+
+        public Path getDir() {
+            return dir;
+        }
+
+        public DirectorySnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        public void setSnapshot(DirectorySnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Returns the path of the given child of this directory relative to the given project.
+         */
+        public String resolve(Project project, String name) {
+            return dir.getFileSystem().getPath(project.getPath()).relativize(dir.resolve(name)).toString();
+        }
+    }
+}